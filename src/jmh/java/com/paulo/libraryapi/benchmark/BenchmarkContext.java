@@ -0,0 +1,31 @@
+package com.paulo.libraryapi.benchmark;
+
+import com.paulo.libraryapi.LibraryApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        String[] defaults = {
+                "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.search.default.directory_provider=local-heap",
+                "spring.devtools.restart.enabled=false",
+                "server.port=0",
+                "logging.file=target/benchmark.log",
+                "logging.level.root=WARN"
+        };
+        return new SpringApplicationBuilder(LibraryApiApplication.class)
+                .run(Stream.concat(Arrays.stream(defaults), Arrays.stream(properties))
+                        .map(property -> "--" + property)
+                        .toArray(String[]::new));
+    }
+}
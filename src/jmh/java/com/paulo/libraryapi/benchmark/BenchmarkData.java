@@ -0,0 +1,115 @@
+package com.paulo.libraryapi.benchmark;
+
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.List;
+
+public final class BenchmarkData {
+
+    private static final int CHUNK = 1000;
+
+    private static final String[] WORDS = {
+            "aventuras", "historia", "segredo", "jardim", "cidade", "noite", "viagem", "mar", "tempo", "guerra"
+    };
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+
+    private long[] bookIds;
+
+    public BenchmarkData(ApplicationContext context) {
+        this.entityManager = context.getBean(EntityManager.class);
+        this.transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    public static String isbn(int index) {
+        return String.format("978-%09d", index);
+    }
+
+    public static String customer(int index) {
+        return "customer-" + (index % 1000);
+    }
+
+    public static String title(int index) {
+        return WORDS[index % WORDS.length] + " " + WORDS[(index / WORDS.length) % WORDS.length] + " " + index;
+    }
+
+    public int openLoans(int books) {
+        return books / 10;
+    }
+
+    public BenchmarkData seedBooks(int books) {
+        for (int start = 0; start < books; start += CHUNK) {
+            int from = start;
+            int to = Math.min(books, start + CHUNK);
+            transaction.execute(status -> {
+                for (int i = from; i < to; i++) {
+                    entityManager.persist(Book.builder().title(title(i)).author("Autor " + (i % 5000)).isbn(isbn(i)).build());
+                }
+                entityManager.flush();
+                entityManager.clear();
+                return null;
+            });
+        }
+        List<Long> ids = transaction.execute(status ->
+                entityManager.createQuery("select b.id from Book b order by b.id", Long.class).getResultList());
+        bookIds = ids.stream().mapToLong(Long::longValue).toArray();
+        return this;
+    }
+
+    public BenchmarkData seedLoans(int loans) {
+        int books = bookIds.length;
+        int open = openLoans(books);
+        LocalDate today = LocalDate.now();
+        for (int start = 0; start < loans; start += CHUNK) {
+            int from = start;
+            int to = Math.min(loans, start + CHUNK);
+            transaction.execute(status -> {
+                for (int i = from; i < to; i++) {
+                    entityManager.persist(Loan.builder()
+                            .book(entityManager.getReference(Book.class, bookIds[i % books]))
+                            .customer(customer(i))
+                            .customerEmail(customer(i) + "@email.com")
+                            .loanDate(today.minusDays(30 + i % 365))
+                            .dueDate(today.minusDays(26 + i % 365).atStartOfDay())
+                            .returned(true)
+                            .build());
+                }
+                entityManager.flush();
+                entityManager.clear();
+                return null;
+            });
+        }
+        transaction.execute(status -> {
+            for (int i = 0; i < open; i++) {
+                entityManager.persist(Loan.builder()
+                        .book(entityManager.getReference(Book.class, bookIds[i]))
+                        .customer(customer(i))
+                        .customerEmail(customer(i) + "@email.com")
+                        .loanDate(today.minusDays(i % 10))
+                        .dueDate(today.minusDays(i % 10).plusDays(4).atStartOfDay())
+                        .build());
+                if (i % CHUNK == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            return null;
+        });
+        return this;
+    }
+
+    public long bookId(int index) {
+        return bookIds[index];
+    }
+
+    public int books() {
+        return bookIds.length;
+    }
+}
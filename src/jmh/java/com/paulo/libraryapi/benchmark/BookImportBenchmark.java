@@ -0,0 +1,102 @@
+package com.paulo.libraryapi.benchmark;
+
+import com.paulo.libraryapi.api.dto.BookImportResultDTO;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.service.BookImportService;
+import com.paulo.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookImportBenchmark {
+
+    @Param("10000")
+    int rows;
+
+    ConfigurableApplicationContext context;
+    BookImportService importService;
+    BookService bookService;
+
+    int batch;
+    byte[] ndjson;
+    byte[] csv;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Rows {
+
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        importService = context.getBean(BookImportService.class);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        batch++;
+        StringBuilder json = new StringBuilder();
+        StringBuilder text = new StringBuilder("isbn,title,author\n");
+        for (int i = 0; i < rows; i++) {
+            String isbn = isbn(i);
+            String title = BenchmarkData.title(i);
+            json.append("{\"isbn\":\"").append(isbn)
+                    .append("\",\"title\":\"").append(title)
+                    .append("\",\"author\":\"Autor ").append(i % 5000).append("\"}\n");
+            text.append(isbn).append(',').append(title).append(",Autor ").append(i % 5000).append('\n');
+        }
+        ndjson = json.toString().getBytes(StandardCharsets.UTF_8);
+        csv = text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookImportResultDTO importNdjson(Rows counter) throws IOException {
+        BookImportResultDTO result = importService.importBooks(new ByteArrayInputStream(ndjson), BookImportService.Format.NDJSON);
+        counter.rows += result.getImported();
+        return result;
+    }
+
+    @Benchmark
+    public BookImportResultDTO importCsv(Rows counter) throws IOException {
+        BookImportResultDTO result = importService.importBooks(new ByteArrayInputStream(csv), BookImportService.Format.CSV);
+        counter.rows += result.getImported();
+        return result;
+    }
+
+    @Benchmark
+    public int saveOneByOne(Rows counter) {
+        int saved = Math.min(rows, 1000);
+        for (int i = 0; i < saved; i++) {
+            bookService.save(Book.builder().title(BenchmarkData.title(i)).author("Autor " + (i % 5000)).isbn(isbn(i)).build());
+        }
+        counter.rows += saved;
+        return saved;
+    }
+
+    private String isbn(int index) {
+        return String.format("%06d-%09d", batch, index);
+    }
+}
@@ -0,0 +1,81 @@
+package com.paulo.libraryapi.benchmark;
+
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    @Param("1000000")
+    int books;
+
+    ConfigurableApplicationContext context;
+    BookService service;
+    BookRepository repository;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        new BenchmarkData(context).seedBooks(books);
+        service = context.getBean(BookService.class);
+        repository = context.getBean(BookRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Book> findByTitleContaining() {
+        return service.find(Book.builder().title("jardim").build(), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Book> findByTitleAndAuthorContaining() {
+        return service.find(Book.builder().title("noite").author("autor 12").build(), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Book> exampleFindByTitleContaining() {
+        return repository.findAll(containing(Book.builder().title("jardim").build()), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Book> exampleFindByTitleAndAuthorContaining() {
+        return repository.findAll(containing(Book.builder().title("noite").author("autor 12").build()), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Optional<Book> getBookByIsbn() {
+        return service.getBookByIsbn(BenchmarkData.isbn(ThreadLocalRandom.current().nextInt(books)));
+    }
+
+    @Benchmark
+    public Optional<Book> repositoryFindByIsbn() {
+        return repository.findByIsbn(BenchmarkData.isbn(ThreadLocalRandom.current().nextInt(books)));
+    }
+
+    private static Example<Book> containing(Book filter) {
+        return Example.of(filter, ExampleMatcher.matching()
+                .withIgnoreCase()
+                .withIgnoreNullValues()
+                .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+    }
+}
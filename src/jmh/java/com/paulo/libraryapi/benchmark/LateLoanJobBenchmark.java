@@ -0,0 +1,87 @@
+package com.paulo.libraryapi.benchmark;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.paulo.libraryapi.model.entity.EmailStatus;
+import com.paulo.libraryapi.model.repository.EmailOutboxRepository;
+import com.paulo.libraryapi.service.schedule.EmailOutboxDispatcher;
+import com.paulo.libraryapi.service.schedule.ScheduleServices;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LateLoanJobBenchmark {
+
+    @Param("100000")
+    int books;
+
+    @Param("100000")
+    int loans;
+
+    @Param({"100", "500"})
+    int batchSize;
+
+    GreenMail smtp;
+    ConfigurableApplicationContext context;
+    ScheduleServices scheduleServices;
+    EmailOutboxDispatcher dispatcher;
+    EmailOutboxRepository outboxRepository;
+    JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp() {
+        smtp = new GreenMail(ServerSetupTest.SMTP);
+        smtp.start();
+        context = BenchmarkContext.start(
+                "spring.mail.host=localhost",
+                "spring.mail.port=" + ServerSetupTest.SMTP.getPort(),
+                "spring.mail.username=",
+                "spring.mail.password=",
+                "spring.mail.properties.mail.smtp.auth=false",
+                "spring.mail.properties.mail.smtp.starttls.enable=false",
+                "application.mail.lateloans.batch-size=" + batchSize,
+                "application.mail.outbox.poll-interval=PT1H"
+        );
+        new BenchmarkData(context).seedBooks(books).seedLoans(loans);
+        scheduleServices = context.getBean(ScheduleServices.class);
+        dispatcher = context.getBean(EmailOutboxDispatcher.class);
+        outboxRepository = context.getBean(EmailOutboxRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetRun() throws Exception {
+        jdbcTemplate.update("delete from job_checkpoint");
+        jdbcTemplate.update("delete from email_outbox");
+        smtp.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        smtp.stop();
+    }
+
+    @Benchmark
+    public void sendMailToLateLoans() throws Exception {
+        scheduleServices.sendMailToLateLoans().get();
+    }
+
+    @Benchmark
+    public void sendMailToLateLoansAndDrainOutbox() throws Exception {
+        scheduleServices.sendMailToLateLoans().get();
+        while (outboxRepository.countByStatusIn(Arrays.asList(EmailStatus.PENDING, EmailStatus.SENDING)) > 0) {
+            dispatcher.dispatch();
+            Thread.sleep(1);
+        }
+    }
+}
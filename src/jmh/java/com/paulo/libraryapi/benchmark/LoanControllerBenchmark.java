@@ -0,0 +1,57 @@
+package com.paulo.libraryapi.benchmark;
+
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.api.dto.LoanFilterDTO;
+import com.paulo.libraryapi.api.resource.LoanController;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanControllerBenchmark {
+
+    @Param("10000")
+    int books;
+
+    @Param("100000")
+    int loans;
+
+    @Param("20")
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    LoanController controller;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        new BenchmarkData(context).seedBooks(books).seedLoans(loans);
+        controller = context.getBean(LoanController.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<LoanDTO> findByCustomer() {
+        String customer = BenchmarkData.customer(ThreadLocalRandom.current().nextInt(1000));
+        return controller.find(LoanFilterDTO.builder().customer(customer).build(), PageRequest.of(0, pageSize));
+    }
+
+    @Benchmark
+    public Page<LoanDTO> findByIsbn() {
+        String isbn = BenchmarkData.isbn(ThreadLocalRandom.current().nextInt(books));
+        return controller.find(LoanFilterDTO.builder().isbn(isbn).build(), PageRequest.of(0, pageSize));
+    }
+}
@@ -0,0 +1,181 @@
+package com.paulo.libraryapi.benchmark;
+
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.LoanRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LoanRepositoryBenchmark {
+
+    @Param("10000")
+    int books;
+
+    @Param("10000000")
+    int loans;
+
+    @Param("50")
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    LoanRepository repository;
+    JdbcTemplate jdbcTemplate;
+    BenchmarkData data;
+    long lastSeededLoan;
+    int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        data = new BenchmarkData(context).seedBooks(books).seedLoans(loans);
+        repository = context.getBean(LoanRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        lastSeededLoan = jdbcTemplate.queryForObject("select max(id) from loan", Long.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLoans() {
+        jdbcTemplate.update("delete from loan where id > ?", lastSeededLoan);
+        next = data.openLoans(books);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Loan saveOpenLoan() {
+        if (next == data.books()) {
+            resetLoans();
+        }
+        return repository.saveAndFlush(openLoan(data.bookId(next++)));
+    }
+
+    @Benchmark
+    public boolean saveLoanForLoanedBook() {
+        try {
+            repository.saveAndFlush(openLoan(data.bookId(ThreadLocalRandom.current().nextInt(data.openLoans(books)))));
+            return true;
+        } catch (DataIntegrityViolationException ex) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public List<Long> findOpenBookIds() {
+        List<Long> bookIds = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            bookIds.add(data.bookId(ThreadLocalRandom.current().nextInt(books)));
+        }
+        return repository.findOpenBookIds(bookIds);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public long findLateLoans() {
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        Long after = 0L;
+        List<Loan> page;
+        do {
+            page = repository.findLate(now, after, Long.MAX_VALUE, PageRequest.of(0, pageSize));
+            total += page.size();
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+        return total;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public long findDueLoans() {
+        LocalDateTime until = LocalDateTime.now().plusDays(1);
+        long total = 0;
+        LocalDateTime after = LocalDateTime.now();
+        Long afterId = 0L;
+        List<Loan> page;
+        do {
+            page = repository.findDue(after, afterId, until, PageRequest.of(0, pageSize));
+            total += page.size();
+            if (!page.isEmpty()) {
+                Loan last = page.get(page.size() - 1);
+                after = last.getDueDate();
+                afterId = last.getId();
+            }
+        } while (page.size() == pageSize);
+        return total;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public long exportCustomerHistoryByOffset() {
+        String customer = BenchmarkData.customer(ThreadLocalRandom.current().nextInt(1000));
+        long total = 0;
+        Pageable pageRequest = PageRequest.of(0, pageSize);
+        Page<Loan> page;
+        do {
+            page = repository.findByBookIsbnOrCustomer(customer, null, pageRequest);
+            total += page.getNumberOfElements();
+            pageRequest = pageRequest.next();
+        } while (page.hasNext());
+        return total;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public long exportCustomerHistoryByKeyset() {
+        String customer = BenchmarkData.customer(ThreadLocalRandom.current().nextInt(1000));
+        long total = 0;
+        Long after = 0L;
+        Slice<Loan> slice;
+        do {
+            slice = repository.findByBookIsbnOrCustomerAfter(customer, null, after, PageRequest.of(0, pageSize));
+            List<Loan> content = slice.getContent();
+            total += content.size();
+            if (!content.isEmpty()) {
+                after = content.get(content.size() - 1).getId();
+            }
+        } while (slice.hasNext());
+        return total;
+    }
+
+    private static Loan openLoan(long bookId) {
+        LocalDate today = LocalDate.now();
+        return Loan.builder()
+                .book(Book.builder().id(bookId).build())
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .loanDate(today)
+                .dueDate(today.plusDays(4).atStartOfDay())
+                .build();
+    }
+}
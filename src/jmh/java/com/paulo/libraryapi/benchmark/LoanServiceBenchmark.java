@@ -0,0 +1,62 @@
+package com.paulo.libraryapi.benchmark;
+
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanServiceBenchmark {
+
+    @Param("100000")
+    int books;
+
+    @Param("100000")
+    int loans;
+
+    ConfigurableApplicationContext context;
+    LoanService service;
+    JdbcTemplate jdbcTemplate;
+    BenchmarkData data;
+    long lastSeededLoan;
+    int next;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        data = new BenchmarkData(context).seedBooks(books).seedLoans(loans);
+        service = context.getBean(LoanService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        lastSeededLoan = jdbcTemplate.queryForObject("select max(id) from loan", Long.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLoans() {
+        jdbcTemplate.update("delete from loan where id > ?", lastSeededLoan);
+        next = data.openLoans(books);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Loan save() {
+        if (next == data.books()) {
+            resetLoans();
+        }
+        Book book = Book.builder().id(data.bookId(next++)).build();
+        return service.save(Loan.builder().book(book).customer("Fulano").customerEmail("fulano@email.com").loanDate(LocalDate.now()).build());
+    }
+}
@@ -0,0 +1,84 @@
+package com.paulo.libraryapi.benchmark;
+
+import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.api.mapper.BookMapper;
+import com.paulo.libraryapi.api.mapper.LoanMapper;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param("20")
+    int pageSize;
+
+    ModelMapper modelMapper;
+    BookMapper bookMapper;
+    LoanMapper loanMapper;
+    Book book;
+    List<Loan> loans;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        bookMapper = Mappers.getMapper(BookMapper.class);
+        loanMapper = Mappers.getMapper(LoanMapper.class);
+        book = Book.builder().id(1l).title(BenchmarkData.title(1)).author("Autor").isbn(BenchmarkData.isbn(1)).build();
+        loans = IntStream.range(0, pageSize)
+                .mapToObj(i -> Loan.builder().id((long) i).book(book).customer(BenchmarkData.customer(i))
+                        .customerEmail(BenchmarkData.customer(i) + "@email.com").loanDate(LocalDate.now()).build())
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> modelMapperLoanPage() {
+        return loans.stream()
+                .map(loan -> {
+                    BookDTO bookDTO = modelMapper.map(loan.getBook(), BookDTO.class);
+                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
+                    loanDTO.setBook(bookDTO);
+                    return loanDTO;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> mapStructLoanPage() {
+        return loans.stream()
+                .map(loanMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> mapStructLoanPageSharedBook() {
+        BookDTO bookDTO = bookMapper.toDto(book);
+        return loans.stream()
+                .map(loan -> loanMapper.toDto(loan, bookDTO))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public BookDTO modelMapperBook() {
+        return modelMapper.map(book, BookDTO.class);
+    }
+
+    @Benchmark
+    public BookDTO mapStructBook() {
+        return bookMapper.toDto(book);
+    }
+}
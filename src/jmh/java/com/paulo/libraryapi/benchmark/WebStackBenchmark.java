@@ -0,0 +1,85 @@
+package com.paulo.libraryapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(1)
+public class WebStackBenchmark {
+
+    @Param({"servlet", "virtual", "reactive"})
+    String stack;
+
+    @Param("200")
+    int maxThreads;
+
+    @Param("10000")
+    int books;
+
+    @Param("50000")
+    int loans;
+
+    @Param("20")
+    int pageSize;
+
+    ConfigurableApplicationContext context;
+    String baseUrl;
+
+    @Setup
+    public void setUp() {
+        switch (stack) {
+            case "reactive":
+                context = BenchmarkContext.start("spring.profiles.active=reactive", "spring.main.web-application-type=reactive");
+                break;
+            case "virtual":
+                context = BenchmarkContext.start("application.threads.virtual=true");
+                break;
+            default:
+                context = BenchmarkContext.start("server.tomcat.max-threads=" + maxThreads);
+        }
+        new BenchmarkData(context).seedBooks(books).seedLoans(loans);
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] findBooks() throws IOException {
+        return get("/api/books?page=0&size=" + pageSize + "&author=Autor%20" + ThreadLocalRandom.current().nextInt(5000));
+    }
+
+    @Benchmark
+    public byte[] findBooksByCursor() throws IOException {
+        return get("/api/books?cursor=&size=" + pageSize);
+    }
+
+    @Benchmark
+    public byte[] findLoansByIsbn() throws IOException {
+        return get("/api/loans?page=0&size=" + pageSize + "&isbn=" + BenchmarkData.isbn(ThreadLocalRandom.current().nextInt(books)));
+    }
+
+    private byte[] get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestProperty("Accept", "application/json");
+        try (InputStream body = connection.getInputStream()) {
+            return StreamUtils.copyToByteArray(body);
+        }
+    }
+}
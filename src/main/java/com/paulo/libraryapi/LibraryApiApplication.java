@@ -1,7 +1,9 @@
 package com.paulo.libraryapi;
 
 import com.paulo.libraryapi.service.EmailService;
-import org.modelmapper.ModelMapper;
+import com.paulo.libraryapi.api.mapper.BookMapper;
+import com.paulo.libraryapi.api.mapper.LoanMapper;
+import org.mapstruct.factory.Mappers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -21,8 +23,13 @@ import java.util.List;
 public class LibraryApiApplication {
 
 	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
+	public BookMapper bookMapper() {
+		return Mappers.getMapper(BookMapper.class);
+	}
+
+	@Bean
+	public LoanMapper loanMapper() {
+		return Mappers.getMapper(LoanMapper.class);
 	}
 
 	public static void main(String[] args) {
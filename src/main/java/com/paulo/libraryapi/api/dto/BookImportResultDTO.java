@@ -0,0 +1,24 @@
+package com.paulo.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportResultDTO {
+
+    private long total;
+    private long imported;
+    private long rejected;
+
+    @Builder.Default
+    private List<BookImportErrorDTO> errors = new ArrayList<>();
+
+}
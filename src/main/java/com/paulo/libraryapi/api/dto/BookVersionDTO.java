@@ -0,0 +1,19 @@
+package com.paulo.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookVersionDTO {
+
+    private Long id;
+    private Long version;
+    private Instant updatedAt;
+}
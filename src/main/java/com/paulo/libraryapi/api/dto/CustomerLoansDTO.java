@@ -0,0 +1,17 @@
+package com.paulo.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerLoansDTO {
+
+    private String customer;
+    private Long loans;
+    private Long openLoans;
+}
@@ -6,7 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotEmpty;
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data
 @Builder
@@ -22,6 +22,7 @@ public class LoanDTO {
     private String customer;
     @NotEmpty
     private String email;
+    private LocalDateTime dueDate;
     private BookDTO book;
 
 }
@@ -0,0 +1,22 @@
+package com.paulo.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanOutcomeDTO {
+
+    private Long id;
+    private String isbn;
+    private Status status;
+    private String message;
+
+    public enum Status {
+        CREATED, RETURNED, ALREADY_RETURNED, NOT_FOUND, BOOK_NOT_FOUND, BOOK_ALREADY_LOANED, INVALID
+    }
+}
@@ -0,0 +1,19 @@
+package com.paulo.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopBookDTO {
+
+    private Long id;
+    private String title;
+    private String author;
+    private String isbn;
+    private Long loans;
+}
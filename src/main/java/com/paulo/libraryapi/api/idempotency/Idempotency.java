@@ -0,0 +1,35 @@
+package com.paulo.libraryapi.api.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+final class Idempotency {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    static final Set<String> PATHS = new HashSet<>(Arrays.asList("/api/loans", "/api/books"));
+
+    private Idempotency() {
+    }
+
+    static boolean isValidKey(String idempotencyKey) {
+        return !idempotencyKey.isEmpty() && idempotencyKey.length() <= MAX_KEY_LENGTH;
+    }
+
+    static byte[] fingerprint(String contentType, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (contentType != null) {
+                digest.update(contentType.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            return digest.digest(body);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
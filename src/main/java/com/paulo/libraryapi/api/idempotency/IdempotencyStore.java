@@ -0,0 +1,166 @@
+package com.paulo.libraryapi.api.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+public final class IdempotencyStore {
+
+    public enum State {
+        ACQUIRED, IN_FLIGHT, MISMATCH, COMPLETED, FULL
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Response {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Claim {
+        private final State state;
+        private final Response response;
+    }
+
+    private static final Claim ACQUIRED = new Claim(State.ACQUIRED, null);
+    private static final Claim IN_FLIGHT = new Claim(State.IN_FLIGHT, null);
+    private static final Claim MISMATCH = new Claim(State.MISMATCH, null);
+    private static final Claim FULL = new Claim(State.FULL, null);
+
+    private final Stripe[] stripes;
+    private final int stripeCapacity;
+    private final long ttl;
+    private final LongSupplier clock;
+
+    public IdempotencyStore(int maxEntries, Duration ttl, int stripes) {
+        this(maxEntries, ttl, stripes, System::nanoTime);
+    }
+
+    IdempotencyStore(int maxEntries, Duration ttl, int stripes, LongSupplier clock) {
+        if (maxEntries < 1 || stripes < 1 || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Idempotency store needs a positive capacity, ttl and stripe count.");
+        }
+        int count = Integer.highestOneBit(Math.min(stripes, maxEntries));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeCapacity = (maxEntries + count - 1) / count;
+        this.ttl = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    public Claim begin(String key, byte[] fingerprint) {
+        Stripe stripe = stripe(key);
+        long now = clock.getAsLong();
+        stripe.lock.lock();
+        try {
+            stripe.expire(now);
+            Entry entry = stripe.entries.get(key);
+            if (entry == null) {
+                if (!stripe.makeRoom(stripeCapacity)) {
+                    return FULL;
+                }
+                stripe.entries.put(key, new Entry(fingerprint, now + ttl));
+                return ACQUIRED;
+            }
+            if (!Arrays.equals(entry.fingerprint, fingerprint)) {
+                return MISMATCH;
+            }
+            return entry.response == null ? IN_FLIGHT : new Claim(State.COMPLETED, entry.response);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void complete(String key, Response response) {
+        Stripe stripe = stripe(key);
+        long now = clock.getAsLong();
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.remove(key);
+            if (entry != null) {
+                entry.response = response;
+                entry.expiresAt = now + ttl;
+                stripe.entries.put(key, entry);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void abandon(String key) {
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(key);
+            if (entry != null && entry.response == null) {
+                stripe.entries.remove(key);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static final class Entry {
+
+        private final byte[] fingerprint;
+        private Response response;
+        private long expiresAt;
+
+        private Entry(byte[] fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        private void expire(long now) {
+            Iterator<Entry> oldest = entries.values().iterator();
+            while (oldest.hasNext() && oldest.next().expiresAt - now <= 0) {
+                oldest.remove();
+            }
+        }
+
+        private boolean makeRoom(int capacity) {
+            Iterator<Entry> oldest = entries.values().iterator();
+            while (entries.size() >= capacity && oldest.hasNext()) {
+                if (oldest.next().response != null) {
+                    oldest.remove();
+                }
+            }
+            return entries.size() < capacity;
+        }
+    }
+}
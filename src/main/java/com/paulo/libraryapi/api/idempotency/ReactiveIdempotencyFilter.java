@@ -0,0 +1,183 @@
+package com.paulo.libraryapi.api.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paulo.libraryapi.api.exception.ApiErrors;
+import com.paulo.libraryapi.config.ReactiveConfig;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+@Profile(ReactiveConfig.PROFILE)
+public class ReactiveIdempotencyFilter implements WebFilter {
+
+    private static final DataBufferFactory BUFFER_FACTORY = new DefaultDataBufferFactory();
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveIdempotencyFilter(ObjectMapper objectMapper,
+                                     @Value("${application.idempotency.max-entries:10000}") int maxEntries,
+                                     @Value("${application.idempotency.ttl:PT24H}") Duration ttl,
+                                     @Value("${application.idempotency.stripes:16}") int stripes) {
+        this.objectMapper = objectMapper;
+        this.store = new IdempotencyStore(maxEntries, ttl, stripes);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String idempotencyKey = request.getHeaders().getFirst(IdempotencyFilter.HEADER);
+        String path = request.getPath().pathWithinApplication().value();
+        if (request.getMethod() != HttpMethod.POST || idempotencyKey == null || !Idempotency.PATHS.contains(path)) {
+            return chain.filter(exchange);
+        }
+        if (!Idempotency.isValidKey(idempotencyKey)) {
+            return reject(exchange.getResponse(), HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key.");
+        }
+        String key = path + " " + idempotencyKey;
+        return DataBufferUtils.join(request.getBody())
+                .map(ReactiveIdempotencyFilter::toBytes)
+                .defaultIfEmpty(new byte[0])
+                .flatMap(body -> filter(exchange, chain, key, body));
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain, String key, byte[] body) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        String contentType = request.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+        IdempotencyStore.Claim claim = store.begin(key, Idempotency.fingerprint(contentType, body));
+        switch (claim.getState()) {
+            case IN_FLIGHT:
+                return reject(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress.");
+            case MISMATCH:
+                return reject(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used with a different request.");
+            case FULL:
+                return reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Too many requests with an Idempotency-Key are in progress.");
+            case COMPLETED:
+                return replay(response, claim.getResponse());
+            default:
+                break;
+        }
+        RecordingResponse recorder = new RecordingResponse(response, key);
+        ServerWebExchange recorded = exchange.mutate()
+                .request(new CachedBodyRequest(request, body))
+                .response(recorder)
+                .build();
+        return chain.filter(recorded)
+                .doOnSuccess(ignored -> recorder.record(new byte[0]))
+                .doFinally(signal -> store.abandon(key));
+    }
+
+    private Mono<Void> replay(ServerHttpResponse response, IdempotencyStore.Response stored) {
+        response.setRawStatusCode(stored.getStatus());
+        response.getHeaders().set(IdempotencyFilter.REPLAYED_HEADER, "true");
+        if (stored.getContentType() != null) {
+            response.getHeaders().setContentType(MediaType.parseMediaType(stored.getContentType()));
+        }
+        response.getHeaders().setContentLength(stored.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(stored.getBody())));
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, HttpStatus status, String reason) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new ApiErrors(new ResponseStatusException(status, reason)));
+        } catch (JsonProcessingException ex) {
+            return Mono.error(ex);
+        }
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+
+    private static final class CachedBodyRequest extends ServerHttpRequestDecorator {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(ServerHttpRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.defer(() -> Flux.just(BUFFER_FACTORY.wrap(body)));
+        }
+    }
+
+    private final class RecordingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private RecordingResponse(ServerHttpResponse response, String key) {
+            super(response);
+            this.key = key;
+        }
+
+        private void record(byte[] body) {
+            Integer status = getRawStatusCode();
+            int code = status == null ? HttpStatus.OK.value() : status;
+            if (code < HttpStatus.INTERNAL_SERVER_ERROR.value() && recorded.compareAndSet(false, true)) {
+                MediaType contentType = getHeaders().getContentType();
+                store.complete(key, new IdempotencyStore.Response(
+                        code, contentType == null ? null : contentType.toString(), body));
+            }
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(body)
+                    .map(ReactiveIdempotencyFilter::toBytes)
+                    .defaultIfEmpty(new byte[0])
+                    .flatMap(bytes -> {
+                        record(bytes);
+                        return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                    });
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.defer(() -> {
+                record(new byte[0]);
+                return super.setComplete();
+            });
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+    }
+}
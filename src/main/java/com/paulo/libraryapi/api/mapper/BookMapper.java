@@ -0,0 +1,19 @@
+package com.paulo.libraryapi.api.mapper;
+
+import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.model.entity.Book;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper
+public interface BookMapper {
+
+    BookDTO toDto(Book book);
+
+    @Mapping(target = "loans", ignore = true)
+    @Mapping(target = "available", ignore = true)
+    @Mapping(target = "currentLoanId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    Book toEntity(BookDTO dto);
+}
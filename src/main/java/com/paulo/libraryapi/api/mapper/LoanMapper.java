@@ -0,0 +1,23 @@
+package com.paulo.libraryapi.api.mapper;
+
+import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.model.entity.Loan;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(uses = BookMapper.class)
+public interface LoanMapper {
+
+    @Mapping(target = "isbn", source = "book.isbn")
+    @Mapping(target = "email", source = "customerEmail")
+    LoanDTO toDto(Loan loan);
+
+    @Mapping(target = "id", source = "loan.id")
+    @Mapping(target = "isbn", source = "book.isbn")
+    @Mapping(target = "customer", source = "loan.customer")
+    @Mapping(target = "email", source = "loan.customerEmail")
+    @Mapping(target = "dueDate", source = "loan.dueDate")
+    @Mapping(target = "book", source = "book")
+    LoanDTO toDto(Loan loan, BookDTO book);
+}
@@ -1,54 +1,110 @@
 package com.paulo.libraryapi.api.resource;
 
 import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.BookImportResultDTO;
+import com.paulo.libraryapi.api.dto.BookVersionDTO;
+import com.paulo.libraryapi.api.dto.CursorPageDTO;
 import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.api.mapper.BookMapper;
+import com.paulo.libraryapi.api.mapper.LoanMapper;
+import com.paulo.libraryapi.config.ReactiveConfig;
 import com.paulo.libraryapi.model.entity.Book;
 import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.service.BookImportService;
 import com.paulo.libraryapi.service.BookService;
+import com.paulo.libraryapi.service.ExportService;
 import com.paulo.libraryapi.service.LoanService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @RestController
+@Profile("!" + ReactiveConfig.PROFILE)
 @RequestMapping("/api/books")
 @RequiredArgsConstructor
 @Api("Book API")
 public class BookController {
 
     private final BookService service;
-    private final ModelMapper modelMapper;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
     private final LoanService loanService;
+    private final BookImportService importService;
+    private final ExportService exportService;
 
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @ApiOperation("CREATE A BOOK")
     public BookDTO create(@RequestBody @Valid BookDTO dto) {
-        Book entity = modelMapper.map(dto, Book.class);
+        Book entity = bookMapper.toEntity(dto);
 
         entity = service.save(entity);
 
-        return modelMapper.map(entity, BookDTO.class);
+        return bookMapper.toDto(entity);
+    }
+
+    @PostMapping(value = "import", consumes = "application/x-ndjson")
+    @ApiOperation("IMPORT BOOKS FROM NDJSON")
+    public BookImportResultDTO importNdjson(InputStream body) throws IOException {
+        return importService.importBooks(body, BookImportService.Format.NDJSON);
+    }
+
+    @PostMapping(value = "import", consumes = "text/csv")
+    @ApiOperation("IMPORT BOOKS FROM CSV")
+    public BookImportResultDTO importCsv(InputStream body) throws IOException {
+        return importService.importBooks(body, BookImportService.Format.CSV);
+    }
+
+    @GetMapping("export")
+    @ApiOperation("EXPORT ALL BOOKS AS NDJSON OR CSV")
+    public void export(@RequestParam(defaultValue = "NDJSON") ExportService.Format format,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        Exports.write(response, "books", format, gzip, output -> exportService.exportBooks(output, format));
     }
 
     @GetMapping("{id}")
     @ApiOperation("GET A BOOK DETAILS BY ID")
-    public BookDTO get(@PathVariable Long id) {
-        return service.getById(id)
-                .map( book -> modelMapper.map(book, BookDTO.class))
-                .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    public BookDTO get(@PathVariable Long id, WebRequest request, HttpServletResponse response) {
+        if (ETags.isConditional(request)) {
+            BookVersionDTO version = service.getVersion(id)
+                    .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            if (request.checkNotModified(ETags.of(version.getVersion()), ETags.lastModified(version.getUpdatedAt()))) {
+                return null;
+            }
+            Book book = service.getById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            if (book.getVersion() != version.getVersion()) {
+                book = service.reload(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            }
+            response.setHeader(HttpHeaders.ETAG, ETags.of(book.getVersion()));
+            if (book.getUpdatedAt() != null) {
+                response.setDateHeader(HttpHeaders.LAST_MODIFIED, book.getUpdatedAt().toEpochMilli());
+            }
+            return bookMapper.toDto(book);
+        }
+        Book book = service.getById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        request.checkNotModified(ETags.of(book.getVersion()), ETags.lastModified(book.getUpdatedAt()));
+        return bookMapper.toDto(book);
     }
 
     @DeleteMapping("{id}")
@@ -61,25 +117,49 @@ public class BookController {
 
     @PutMapping("{id}")
     @ApiOperation("UPDATE A BOOK BY ID")
-    public BookDTO update(@PathVariable Long id, @RequestBody @Valid BookDTO dto) {
+    public ResponseEntity<BookDTO> update(@PathVariable Long id, @RequestBody @Valid BookDTO dto,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Book book = service.getById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        book.setAuthor(dto.getAuthor());
-        book.setTitle(dto.getTitle());
-        book = service.update(book);
-        return modelMapper.map(book, BookDTO.class);
+        if (ifMatch != null && !ETags.matches(ifMatch, book.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+        try {
+            book = service.update(book.toBuilder().author(dto.getAuthor()).title(dto.getTitle()).build());
+        } catch (OptimisticLockingFailureException ex) {
+            throw new ResponseStatusException(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(ETags.of(book.getVersion()));
+        if (book.getUpdatedAt() != null) {
+            response.lastModified(book.getUpdatedAt());
+        }
+        return response.body(bookMapper.toDto(book));
     }
 
     @GetMapping
     @ApiOperation("FIND BOOKS")
     public PageImpl<BookDTO> find(BookDTO dto, Pageable pageRequest) {
-        Book filter = modelMapper.map(dto, Book.class);
+        Book filter = bookMapper.toEntity(dto);
+        filter.setAvailable(dto.getAvailable());
         Page<Book> result = service.find(filter, pageRequest);
         List<BookDTO> list = result.getContent().stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
+                .map(bookMapper::toDto)
                 .collect(Collectors.toList());
         return new PageImpl<BookDTO>(list,pageRequest, result.getTotalElements());
     }
 
+    @GetMapping(params = "cursor")
+    @ApiOperation("FIND BOOKS BY CURSOR")
+    public CursorPageDTO<BookDTO> findByCursor(BookDTO dto,
+                                               @RequestParam String cursor,
+                                               @RequestParam(defaultValue = "20") int size,
+                                               @RequestParam(defaultValue = "false") boolean estimate) {
+        Book filter = bookMapper.toEntity(dto);
+        filter.setAvailable(dto.getAvailable());
+        Slice<Book> result = service.findAfter(filter, Cursors.decode(cursor), Cursors.size(size));
+        Long countEstimate = estimate ? service.estimateCount() : null;
+        return Cursors.page(result, bookMapper::toDto, Book::getId, countEstimate);
+    }
+
     @GetMapping("{id}/loans")
     @ApiOperation("FIND LOANS BY BOOK ID")
     public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageRequest) {
@@ -88,17 +168,27 @@ public class BookController {
         );
 
         Page<Loan> result = loanService.getLoansByBook(book, pageRequest);
+        BookDTO bookDTO = bookMapper.toDto(book);
         List<LoanDTO> list = result.getContent().stream()
-                .map( entity -> {
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                })
+                .map( entity -> loanMapper.toDto(entity, bookDTO))
                 .collect(Collectors.toList());
 
         return new PageImpl<LoanDTO>(list,pageRequest, result.getTotalElements());
 
     }
 
+    @GetMapping(value = "{id}/loans", params = "cursor")
+    @ApiOperation("FIND LOANS BY BOOK ID AND CURSOR")
+    public CursorPageDTO<LoanDTO> loansByBookAndCursor(@PathVariable Long id,
+                                                       @RequestParam String cursor,
+                                                       @RequestParam(defaultValue = "20") int size) {
+        Book book = service.getById(id).orElseThrow(
+                () -> new ResponseStatusException(HttpStatus.NOT_FOUND)
+        );
+
+        Slice<Loan> result = loanService.getLoansByBookAfter(book, Cursors.decode(cursor), Cursors.size(size));
+        BookDTO bookDTO = bookMapper.toDto(book);
+        return Cursors.page(result, entity -> loanMapper.toDto(entity, bookDTO), Loan::getId, null);
+    }
+
 }
@@ -0,0 +1,63 @@
+package com.paulo.libraryapi.api.resource;
+
+import com.paulo.libraryapi.api.dto.CursorPageDTO;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+final class Cursors {
+
+    static final int MAX_SIZE = 1000;
+
+    private Cursors() {
+    }
+
+    static Long decode(String cursor) {
+        if (!StringUtils.hasText(cursor)) {
+            return 0L;
+        }
+        try {
+            String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.valueOf(id);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+        }
+    }
+
+    static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int size(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_SIZE + ".");
+        }
+        return size;
+    }
+
+    static <E> Slice<E> slice(List<E> rows, int size) {
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, PageRequest.of(0, size), hasNext);
+    }
+
+    static <E, T> CursorPageDTO<T> page(Slice<E> slice, Function<E, T> mapper, Function<E, Long> idOf, Long countEstimate) {
+        List<E> content = slice.getContent();
+        List<T> list = content.stream().map(mapper).collect(Collectors.toList());
+        String next = slice.hasNext() ? encode(idOf.apply(content.get(content.size() - 1))) : null;
+        return CursorPageDTO.<T>builder()
+                .content(list)
+                .size(list.size())
+                .nextCursor(next)
+                .countEstimate(countEstimate)
+                .build();
+    }
+}
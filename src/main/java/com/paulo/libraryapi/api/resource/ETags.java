@@ -0,0 +1,43 @@
+package com.paulo.libraryapi.api.resource;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+
+final class ETags {
+
+    private static final String ANY = "*";
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    static long lastModified(Instant updatedAt) {
+        return updatedAt == null ? -1 : updatedAt.toEpochMilli();
+    }
+
+    static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    static boolean isConditional(HttpHeaders headers) {
+        return headers.getFirst(HttpHeaders.IF_NONE_MATCH) != null
+                || headers.getFirst(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    static boolean matches(String ifMatch, Long version) {
+        String current = of(version);
+        for (String tag : ifMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (ANY.equals(trimmed) || current.equals(trimmed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
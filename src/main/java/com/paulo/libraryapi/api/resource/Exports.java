@@ -0,0 +1,38 @@
+package com.paulo.libraryapi.api.resource;
+
+import com.paulo.libraryapi.service.ExportService;
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+final class Exports {
+
+    private static final int GZIP_BUFFER = 64 * 1024;
+
+    private Exports() {
+    }
+
+    static void write(HttpServletResponse response, String name, ExportService.Format format, boolean gzip, Exporter exporter)
+            throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + format.getExtension() + "\"");
+        if (!gzip) {
+            exporter.export(response.getOutputStream());
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        GZIPOutputStream output = new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER);
+        exporter.export(output);
+        output.finish();
+    }
+
+    interface Exporter {
+
+        void export(OutputStream output) throws IOException;
+    }
+}
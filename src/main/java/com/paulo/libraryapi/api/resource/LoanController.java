@@ -1,37 +1,46 @@
 package com.paulo.libraryapi.api.resource;
 
-import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.CursorPageDTO;
 import com.paulo.libraryapi.api.dto.LoanDTO;
 import com.paulo.libraryapi.api.dto.LoanFilterDTO;
+import com.paulo.libraryapi.api.dto.LoanOutcomeDTO;
 import com.paulo.libraryapi.api.dto.ReturnedLoanDTO;
+import com.paulo.libraryapi.api.mapper.LoanMapper;
+import com.paulo.libraryapi.config.ReactiveConfig;
 import com.paulo.libraryapi.model.entity.Book;
 import com.paulo.libraryapi.model.entity.Loan;
 import com.paulo.libraryapi.service.BookService;
+import com.paulo.libraryapi.service.ExportService;
 import com.paulo.libraryapi.service.LoanService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
 @RestController
+@Profile("!" + ReactiveConfig.PROFILE)
 @RequestMapping("/api/loans")
 @RequiredArgsConstructor
 public class LoanController {
 
     private final LoanService service;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final LoanMapper loanMapper;
+    private final ExportService exportService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -53,21 +62,41 @@ public class LoanController {
         service.update(loan);
     }
 
+    @PostMapping("bulk")
+    public List<LoanOutcomeDTO> bulkCreate(@RequestBody List<LoanDTO> dtos) {
+        return service.checkout(dtos);
+    }
+
+    @PatchMapping("bulk")
+    public List<LoanOutcomeDTO> bulkReturn(@RequestBody List<Long> ids) {
+        return service.returnLoans(ids);
+    }
+
     @GetMapping
     public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageRequest) {
         Page<Loan> result = service.find(dto, pageRequest);
 
         List<LoanDTO> list = result.getContent().stream()
-                .map( entity -> {
-                    Book book = entity.getBook();
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                })
+                .map(loanMapper::toDto)
                 .collect(Collectors.toList());
 
         return new PageImpl<LoanDTO>(list, pageRequest, result.getTotalElements());
     }
 
+    @GetMapping(params = "cursor")
+    public CursorPageDTO<LoanDTO> findByCursor(LoanFilterDTO dto,
+                                               @RequestParam String cursor,
+                                               @RequestParam(defaultValue = "20") int size,
+                                               @RequestParam(defaultValue = "false") boolean estimate) {
+        Slice<Loan> result = service.findAfter(dto, Cursors.decode(cursor), Cursors.size(size));
+        Long countEstimate = estimate ? service.estimateCount() : null;
+        return Cursors.page(result, loanMapper::toDto, Loan::getId, countEstimate);
+    }
+
+    @GetMapping("export")
+    public void export(@RequestParam(defaultValue = "NDJSON") ExportService.Format format,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        Exports.write(response, "loans", format, gzip, output -> exportService.exportLoans(output, format));
+    }
 }
@@ -0,0 +1,217 @@
+package com.paulo.libraryapi.api.resource;
+
+import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.BookImportResultDTO;
+import com.paulo.libraryapi.api.dto.CursorPageDTO;
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.api.mapper.BookMapper;
+import com.paulo.libraryapi.api.mapper.LoanMapper;
+import com.paulo.libraryapi.config.ReactiveConfig;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.reactive.ReactiveBookRepository;
+import com.paulo.libraryapi.model.repository.reactive.ReactiveLoanRepository;
+import com.paulo.libraryapi.service.BookImportService;
+import com.paulo.libraryapi.service.BookService;
+import com.paulo.libraryapi.service.LoanService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/books")
+@RequiredArgsConstructor
+@Profile(ReactiveConfig.PROFILE)
+public class ReactiveBookController {
+
+    private static final int STREAM_PREFETCH = 256;
+    private static final int IMPORT_BUFFER = 64 * 1024;
+
+    private final ReactiveBookRepository repository;
+    private final ReactiveLoanRepository loanRepository;
+    private final BookService service;
+    private final BookImportService importService;
+    private final LoanService loanService;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BookDTO> create(@RequestBody @Valid BookDTO dto) {
+        return Blocking.call(() -> bookMapper.toDto(service.save(bookMapper.toEntity(dto))));
+    }
+
+    @PostMapping(value = "import", consumes = "application/x-ndjson")
+    public Mono<BookImportResultDTO> importNdjson(@RequestBody Flux<DataBuffer> body) {
+        return importBooks(body, BookImportService.Format.NDJSON);
+    }
+
+    @PostMapping(value = "import", consumes = "text/csv")
+    public Mono<BookImportResultDTO> importCsv(@RequestBody Flux<DataBuffer> body) {
+        return importBooks(body, BookImportService.Format.CSV);
+    }
+
+    @GetMapping("{id}")
+    public Mono<BookDTO> get(@PathVariable Long id, ServerWebExchange exchange) {
+        if (!ETags.isConditional(exchange.getRequest().getHeaders())) {
+            return existingBook(id).map(book -> toDto(book, exchange));
+        }
+        return repository.findVersionById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .filter(version -> !(version.getUpdatedAt() == null
+                        ? exchange.checkNotModified(ETags.of(version.getVersion()))
+                        : exchange.checkNotModified(ETags.of(version.getVersion()), version.getUpdatedAt())))
+                .flatMap(version -> existingBook(id))
+                .map(book -> toDto(book, exchange));
+    }
+
+    @DeleteMapping("{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> delete(@PathVariable Long id) {
+        return Blocking.run(() -> {
+            Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            service.delete(book);
+        });
+    }
+
+    @PutMapping("{id}")
+    public Mono<ResponseEntity<BookDTO>> update(@PathVariable Long id, @RequestBody @Valid BookDTO dto,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return Blocking.call(() -> {
+            Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            if (ifMatch != null && !ETags.matches(ifMatch, book.getVersion())) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+            }
+            try {
+                book = service.update(book.toBuilder().author(dto.getAuthor()).title(dto.getTitle()).build());
+            } catch (OptimisticLockingFailureException ex) {
+                throw new ResponseStatusException(ifMatch == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED);
+            }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(ETags.of(book.getVersion()));
+            if (book.getUpdatedAt() != null) {
+                response.lastModified(book.getUpdatedAt());
+            }
+            return response.body(bookMapper.toDto(book));
+        });
+    }
+
+    @GetMapping
+    public Mono<PageImpl<BookDTO>> find(BookDTO dto, Pageable pageRequest) {
+        Book filter = filter(dto);
+        return Mono.zip(repository.find(filter, pageRequest).map(bookMapper::toDto).collectList(), repository.count(filter))
+                .map(page -> new PageImpl<>(page.getT1(), pageRequest, page.getT2()));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<BookDTO> stream(BookDTO dto) {
+        return repository.stream(filter(dto))
+                .limitRate(STREAM_PREFETCH)
+                .map(bookMapper::toDto);
+    }
+
+    @GetMapping(params = "cursor")
+    public Mono<CursorPageDTO<BookDTO>> findByCursor(BookDTO dto,
+                                                     @RequestParam String cursor,
+                                                     @RequestParam(defaultValue = "20") int size,
+                                                     @RequestParam(defaultValue = "false") boolean estimate) {
+        int limit = Cursors.size(size);
+        Mono<Optional<Long>> countEstimate = estimate ? repository.estimateCount().map(Optional::of) : Mono.just(Optional.empty());
+        return repository.findAfter(filter(dto), Cursors.decode(cursor), limit + 1)
+                .collectList()
+                .zipWith(countEstimate)
+                .map(page -> Cursors.page(Cursors.slice(page.getT1(), limit), bookMapper::toDto, Book::getId, page.getT2().orElse(null)));
+    }
+
+    @GetMapping("{id}/loans")
+    public Mono<PageImpl<LoanDTO>> loansByBook(@PathVariable Long id, Pageable pageRequest) {
+        return existingBook(id).flatMap(book -> {
+            BookDTO bookDTO = bookMapper.toDto(book);
+            return Mono.zip(loanRepository.findByBook(id, pageRequest).collectList(), loanRepository.countByBook(id))
+                    .flatMap(live -> Blocking.call(() -> loanService.mergeArchivedByBook(
+                            new PageImpl<>(live.getT1(), pageRequest, live.getT2()), book)))
+                    .map(page -> new PageImpl<>(page.getContent().stream()
+                            .map(loan -> loanMapper.toDto(loan, bookDTO))
+                            .collect(Collectors.toList()), pageRequest, page.getTotalElements()));
+        });
+    }
+
+    @GetMapping(value = "{id}/loans", params = "cursor")
+    public Mono<CursorPageDTO<LoanDTO>> loansByBookAndCursor(@PathVariable Long id,
+                                                             @RequestParam String cursor,
+                                                             @RequestParam(defaultValue = "20") int size) {
+        int limit = Cursors.size(size);
+        return existingBook(id).flatMap(book -> {
+            BookDTO bookDTO = bookMapper.toDto(book);
+            Long after = Cursors.decode(cursor);
+            return loanRepository.findByBookAfter(id, after, limit + 1)
+                    .collectList()
+                    .flatMap(rows -> Blocking.call(() -> loanService.mergeArchivedByBookAfter(Cursors.slice(rows, limit), book, after, limit)))
+                    .map(slice -> Cursors.page(slice, entity -> loanMapper.toDto(entity, bookDTO), Loan::getId, null));
+        });
+    }
+
+    private BookDTO toDto(Book book, ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        headers.setETag(ETags.of(book.getVersion()));
+        if (book.getUpdatedAt() != null) {
+            headers.setLastModified(book.getUpdatedAt());
+        }
+        return bookMapper.toDto(book);
+    }
+
+    private Mono<Book> existingBook(Long id) {
+        return repository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    private Book filter(BookDTO dto) {
+        Book filter = bookMapper.toEntity(dto);
+        filter.setAvailable(dto.getAvailable());
+        return filter;
+    }
+
+    private Mono<BookImportResultDTO> importBooks(Flux<DataBuffer> body, BookImportService.Format format) {
+        return Mono.defer(() -> {
+            PipedInputStream input = new PipedInputStream(IMPORT_BUFFER);
+            PipedOutputStream output;
+            try {
+                output = new PipedOutputStream(input);
+            } catch (IOException ex) {
+                return Mono.error(ex);
+            }
+            DataBufferUtils.write(body.publishOn(Schedulers.boundedElastic()), output)
+                    .doFinally(signal -> close(output))
+                    .subscribe(DataBufferUtils.releaseConsumer(), ex -> close(output));
+            return Blocking.call(() -> importService.importBooks(input, format));
+        });
+    }
+
+    private static void close(OutputStream output) {
+        try {
+            output.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.paulo.libraryapi.api.resource;
+
+import com.paulo.libraryapi.api.dto.CursorPageDTO;
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.api.dto.LoanFilterDTO;
+import com.paulo.libraryapi.api.dto.LoanOutcomeDTO;
+import com.paulo.libraryapi.api.dto.ReturnedLoanDTO;
+import com.paulo.libraryapi.api.mapper.LoanMapper;
+import com.paulo.libraryapi.config.ReactiveConfig;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.reactive.ReactiveLoanRepository;
+import com.paulo.libraryapi.service.BookService;
+import com.paulo.libraryapi.service.LoanService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/loans")
+@RequiredArgsConstructor
+@Profile(ReactiveConfig.PROFILE)
+public class ReactiveLoanController {
+
+    private final ReactiveLoanRepository repository;
+    private final LoanService service;
+    private final BookService bookService;
+    private final LoanMapper loanMapper;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Long> create(@RequestBody @Valid LoanDTO dto) {
+        return Blocking.call(() -> {
+            Book book = bookService.getBookByIsbn(dto.getIsbn()).orElseThrow(
+                    () -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn.")
+            );
+            Loan entity = Loan.builder().book(book).customer(dto.getCustomer()).loanDate(LocalDate.now()).customerEmail(dto.getEmail()).build();
+            return service.save(entity).getId();
+        });
+    }
+
+    @PatchMapping("{id}")
+    public Mono<Void> returnBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto) {
+        return Blocking.run(() -> {
+            Loan loan = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            loan.setReturned(dto.getReturned());
+            service.update(loan);
+        });
+    }
+
+    @PostMapping("bulk")
+    public Mono<List<LoanOutcomeDTO>> bulkCreate(@RequestBody List<LoanDTO> dtos) {
+        return Blocking.call(() -> service.checkout(dtos));
+    }
+
+    @PatchMapping("bulk")
+    public Mono<List<LoanOutcomeDTO>> bulkReturn(@RequestBody List<Long> ids) {
+        return Blocking.call(() -> service.returnLoans(ids));
+    }
+
+    @GetMapping
+    public Mono<PageImpl<LoanDTO>> find(LoanFilterDTO dto, Pageable pageRequest) {
+        return Mono.zip(repository.find(dto, pageRequest).collectList(), repository.count(dto))
+                .flatMap(live -> Blocking.call(() -> service.mergeArchived(new PageImpl<>(live.getT1(), pageRequest, live.getT2()), dto)))
+                .map(page -> new PageImpl<>(page.getContent().stream().map(loanMapper::toDto).collect(Collectors.toList()),
+                        pageRequest, page.getTotalElements()));
+    }
+
+    @GetMapping(params = "cursor")
+    public Mono<CursorPageDTO<LoanDTO>> findByCursor(LoanFilterDTO dto,
+                                                     @RequestParam String cursor,
+                                                     @RequestParam(defaultValue = "20") int size,
+                                                     @RequestParam(defaultValue = "false") boolean estimate) {
+        int limit = Cursors.size(size);
+        Long after = Cursors.decode(cursor);
+        Mono<Optional<Long>> countEstimate = estimate ? repository.estimateCount().map(Optional::of) : Mono.just(Optional.empty());
+        return repository.findAfter(dto, after, limit + 1)
+                .collectList()
+                .flatMap(rows -> Blocking.call(() -> service.mergeArchivedAfter(Cursors.slice(rows, limit), dto, after, limit)))
+                .zipWith(countEstimate)
+                .map(page -> Cursors.page(page.getT1(), loanMapper::toDto, Loan::getId, page.getT2().orElse(null)));
+    }
+}
@@ -0,0 +1,77 @@
+package com.paulo.libraryapi.api.resource;
+
+import com.paulo.libraryapi.api.dto.CustomerLoansDTO;
+import com.paulo.libraryapi.api.dto.DailyLoansDTO;
+import com.paulo.libraryapi.api.dto.OverdueLoansDTO;
+import com.paulo.libraryapi.api.dto.TopBookDTO;
+import com.paulo.libraryapi.config.ReactiveConfig;
+import com.paulo.libraryapi.exception.BussinessException;
+import com.paulo.libraryapi.service.ReportService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@RestController
+@Profile("!" + ReactiveConfig.PROFILE)
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@Api("Report API")
+public class ReportController {
+
+    static final int MAX_LIMIT = 100;
+    static final int MAX_DAYS = 366;
+
+    private final ReportService service;
+
+    @GetMapping("loans/daily")
+    @ApiOperation("LOANS PER DAY")
+    public List<DailyLoansDTO> dailyLoans(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(29) : from;
+        if (start.isAfter(end) || ChronoUnit.DAYS.between(start, end) >= MAX_DAYS) {
+            throw new BussinessException("The period must start before it ends and span at most " + MAX_DAYS + " days.");
+        }
+        return service.dailyLoans(start, end);
+    }
+
+    @GetMapping("loans/overdue")
+    @ApiOperation("OVERDUE LOANS")
+    public OverdueLoansDTO overdueLoans() {
+        return service.overdueLoans();
+    }
+
+    @GetMapping("books/top")
+    @ApiOperation("MOST LOANED BOOKS")
+    public List<TopBookDTO> topBooks(@RequestParam(defaultValue = "10") int limit) {
+        return service.topBooks(limit(limit));
+    }
+
+    @GetMapping("customers/top")
+    @ApiOperation("CUSTOMERS WITH MOST LOANS")
+    public List<CustomerLoansDTO> topCustomers(@RequestParam(defaultValue = "10") int limit) {
+        return service.topCustomers(limit(limit));
+    }
+
+    @GetMapping("customers/{customer}")
+    @ApiOperation("LOAN TOTALS OF A CUSTOMER")
+    public CustomerLoansDTO customer(@PathVariable String customer) {
+        return service.customer(customer).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    private static int limit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BussinessException("Limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,22 @@
+package com.paulo.libraryapi.config;
+
+import com.paulo.libraryapi.model.entity.Book;
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
+import org.hibernate.search.analyzer.definition.LuceneAnalysisDefinitionProvider;
+import org.hibernate.search.analyzer.definition.LuceneAnalysisDefinitionRegistryBuilder;
+
+public class BookAnalysisDefinitionProvider implements LuceneAnalysisDefinitionProvider {
+
+    @Override
+    public void register(LuceneAnalysisDefinitionRegistryBuilder builder) {
+        builder.analyzer(Book.TEXT_ANALYZER)
+                .tokenizer(StandardTokenizerFactory.class)
+                .tokenFilter(ASCIIFoldingFilterFactory.class)
+                .tokenFilter(LowerCaseFilterFactory.class)
+                .normalizer(Book.KEYWORD_NORMALIZER)
+                .tokenFilter(ASCIIFoldingFilterFactory.class)
+                .tokenFilter(LowerCaseFilterFactory.class);
+    }
+}
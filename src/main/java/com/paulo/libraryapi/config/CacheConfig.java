@@ -0,0 +1,14 @@
+package com.paulo.libraryapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@EnableCaching
+@Configuration
+public class CacheConfig {
+
+    public static final String BOOKS = "books";
+
+    public static final String BOOKS_BY_ISBN = "booksByIsbn";
+
+}
@@ -0,0 +1,31 @@
+package com.paulo.libraryapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Component
+public class LoanPolicy {
+
+    private final Duration period;
+
+    public LoanPolicy(@Value("${application.loans.period:P4D}") Duration period) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalStateException("application.loans.period must be positive, got " + period);
+        }
+        this.period = period;
+    }
+
+    public Duration getPeriod() {
+        return period;
+    }
+
+    public LocalDateTime dueDate(LocalDate loanDate) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = loanDate == null || loanDate.equals(now.toLocalDate()) ? now : loanDate.atStartOfDay();
+        return start.plus(period);
+    }
+}
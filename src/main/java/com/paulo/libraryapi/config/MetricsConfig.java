@@ -0,0 +1,56 @@
+package com.paulo.libraryapi.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@Configuration
+public class MetricsConfig {
+
+    static final String STATEMENTS_PER_REQUEST = "hibernate.statements.per.request";
+
+    @Bean
+    public StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(StatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    @Bean
+    @Profile("!" + ReactiveConfig.PROFILE)
+    public FilterRegistrationBean<OncePerRequestFilter> statementCountFilter(StatementCounter statementCounter,
+                                                                             MeterRegistry meterRegistry) {
+        DistributionSummary statements = DistributionSummary.builder(STATEMENTS_PER_REQUEST)
+                .description("SQL statements prepared by Hibernate while serving a request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                long before = statementCounter.current();
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    statements.record(statementCounter.current() - before);
+                }
+            }
+        };
+        return new FilterRegistrationBean<>(filter);
+    }
+}
@@ -0,0 +1,65 @@
+package com.paulo.libraryapi.config;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+@Configuration
+@Profile(ReactiveConfig.PROFILE)
+public class ReactiveConfig implements WebFluxConfigurer {
+
+    public static final String PROFILE = "reactive";
+
+    private static final String JDBC_H2 = "jdbc:h2:";
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public ConnectionFactory connectionFactory(@Value("${application.r2dbc.url:}") String url,
+                                               DataSourceProperties dataSourceProperties) {
+        if (!StringUtils.hasText(url)) {
+            url = toR2dbcUrl(dataSourceProperties.determineUrl());
+        }
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername());
+        if (StringUtils.hasText(dataSourceProperties.determinePassword())) {
+            options.option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword());
+        }
+        return ConnectionFactories.get(options.build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver());
+        configurer.addCustomResolver(new ReactiveSortHandlerMethodArgumentResolver());
+    }
+
+    static String toR2dbcUrl(String jdbcUrl) {
+        if (jdbcUrl == null || !jdbcUrl.startsWith(JDBC_H2 + "mem:")) {
+            throw new IllegalStateException("Set application.r2dbc.url for the datasource " + jdbcUrl);
+        }
+        String[] parts = jdbcUrl.substring((JDBC_H2 + "mem:").length()).split(";", 2);
+        String url = "r2dbc:h2:mem:///" + parts[0];
+        return parts.length == 1 ? url : url + "?options=" + parts[1];
+    }
+}
@@ -0,0 +1,28 @@
+package com.paulo.libraryapi.config;
+
+import com.paulo.libraryapi.model.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@Endpoint(id = "searchindex")
+@RequiredArgsConstructor
+public class SearchIndexEndpoint {
+
+    private final BookRepository bookRepository;
+
+    @WriteOperation
+    public Map<String, Object> rebuild() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        long indexed = bookRepository.rebuildIndex();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("indexed", indexed);
+        result.put("elapsedMillis", System.currentTimeMillis() - start);
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package com.paulo.libraryapi.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ThreadFactory;
+
+@Configuration
+public class ThreadingConfig {
+
+    public static final String MAIL_OUTBOX_THREAD_FACTORY = "mailOutboxThreadFactory";
+    public static final String LATE_LOANS_THREAD_FACTORY = "lateLoansThreadFactory";
+    public static final String DUE_LOANS_THREAD_FACTORY = "dueLoansThreadFactory";
+    public static final String SEARCH_INDEX_THREAD_FACTORY = "searchIndexThreadFactory";
+
+    private final boolean virtual;
+
+    public ThreadingConfig(@Value("${application.threads.virtual:false}") boolean virtual) {
+        if (virtual && !VirtualThreads.isSupported()) {
+            throw new IllegalStateException("application.threads.virtual requires Java 21 or newer, running on "
+                    + System.getProperty("java.version"));
+        }
+        this.virtual = virtual;
+    }
+
+    @Bean(MAIL_OUTBOX_THREAD_FACTORY)
+    public ThreadFactory mailOutboxThreadFactory() {
+        return threadFactory("mail-outbox-");
+    }
+
+    @Bean(LATE_LOANS_THREAD_FACTORY)
+    public ThreadFactory lateLoansThreadFactory() {
+        return threadFactory("late-loans-");
+    }
+
+    @Bean(DUE_LOANS_THREAD_FACTORY)
+    public ThreadFactory dueLoansThreadFactory() {
+        return threadFactory("due-loans-");
+    }
+
+    @Bean(SEARCH_INDEX_THREAD_FACTORY)
+    public ThreadFactory searchIndexThreadFactory() {
+        return threadFactory("search-index-");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.threads.virtual", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.executor("http-"));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.threads.virtual", havingValue = "true")
+    public TaskScheduler taskScheduler(@Value("${spring.task.scheduling.pool.size:1}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadFactory(threadFactory("scheduling-"));
+        return scheduler;
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    @ConditionalOnProperty(name = "application.threads.virtual", havingValue = "true")
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new SimpleAsyncTaskExecutor(threadFactory("task-"));
+    }
+
+    private ThreadFactory threadFactory(String prefix) {
+        return virtual ? VirtualThreads.factory(prefix) : new CustomizableThreadFactory(prefix);
+    }
+}
@@ -4,32 +4,85 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.search.annotations.Analyze;
+import org.hibernate.search.annotations.Analyzer;
+import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Indexed;
+import org.hibernate.search.annotations.Normalizer;
+import org.hibernate.search.annotations.SortableField;
 
 import javax.persistence.*;
+import java.time.Instant;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table
+@Indexed
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_book_isbn", columnNames = "isbn"),
+        indexes = {
+                @Index(name = "idx_book_available", columnList = "available, id"),
+                @Index(name = "idx_book_updated_at", columnList = "updated_at")
+        })
 public class Book {
 
+    public static final String TEXT_ANALYZER = "bookText";
+    public static final String KEYWORD_NORMALIZER = "bookKeyword";
+
     @Id
     @Column
-    @GeneratedValue( strategy = GenerationType.IDENTITY )
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
+    @Field(name = "idSort", analyze = Analyze.NO)
+    @SortableField(forField = "idSort")
     private Long id;
 
     @Column
+    @Field(analyzer = @Analyzer(definition = TEXT_ANALYZER))
+    @Field(name = "titleSort", analyze = Analyze.NO, normalizer = @Normalizer(definition = KEYWORD_NORMALIZER))
+    @SortableField(forField = "titleSort")
     private String title;
 
     @Column
+    @Field(analyzer = @Analyzer(definition = TEXT_ANALYZER))
+    @Field(name = "authorSort", analyze = Analyze.NO, normalizer = @Normalizer(definition = KEYWORD_NORMALIZER))
+    @SortableField(forField = "authorSort")
     private String author;
 
-    @Column
+    @Column(nullable = false)
+    @Field(analyze = Analyze.NO, normalizer = @Normalizer(definition = KEYWORD_NORMALIZER))
+    @SortableField
     private String isbn;
 
+    @Column(nullable = false, updatable = false, columnDefinition = "boolean default true")
+    @Field(analyze = Analyze.NO)
+    private Boolean available;
+
+    @Column(name = "current_loan_id", updatable = false)
+    private Long currentLoanId;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false, columnDefinition = "timestamp default current_timestamp")
+    private Instant updatedAt;
+
     @OneToMany(mappedBy = "book", fetch = FetchType.LAZY)
     private List<Loan> loans;
+
+    @PrePersist
+    private void normalizeAvailable() {
+        if (available == null) {
+            available = currentLoanId == null;
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package com.paulo.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "book_deletion", indexes = @Index(name = "idx_book_deletion_deleted_at", columnList = "deleted_at"))
+public class BookDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(nullable = false)
+    private String isbn;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+}
@@ -0,0 +1,31 @@
+package com.paulo.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "customer_loan_stats", indexes = @Index(name = "idx_customer_loan_stats_loans", columnList = "loans, customer"))
+public class CustomerLoanStats {
+
+    @Id
+    @Column
+    private String customer;
+
+    @Column(nullable = false)
+    private Long loans;
+
+    @Column(name = "open_loans", nullable = false)
+    private Long openLoans;
+}
@@ -0,0 +1,8 @@
+package com.paulo.libraryapi.model.entity;
+
+public enum EmailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
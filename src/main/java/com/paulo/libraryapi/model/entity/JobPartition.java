@@ -0,0 +1,50 @@
+package com.paulo.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "job_partition",
+        uniqueConstraints = @UniqueConstraint(name = "uk_job_partition_range", columnNames = {"job", "run_date", "from_id"}),
+        indexes = @Index(name = "idx_job_partition_status", columnList = "job, run_date, status"))
+public class JobPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String job;
+
+    @Column(name = "run_date", nullable = false)
+    private LocalDate runDate;
+
+    @Column(name = "from_id", nullable = false)
+    private Long fromId;
+
+    @Column(name = "to_id", nullable = false)
+    private Long toId;
+
+    @Column(name = "last_key", nullable = false)
+    private Long lastKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobPartitionStatus status;
+
+    @Column
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+}
@@ -0,0 +1,7 @@
+package com.paulo.libraryapi.model.entity;
+
+public enum JobPartitionStatus {
+    PENDING,
+    RUNNING,
+    DONE
+}
@@ -7,17 +7,23 @@ import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity
-@Table
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_loan_open_book", columnNames = "open_book_id"), indexes = {
+        @Index(name = "idx_loan_book_returned", columnList = "id_book, returned"),
+        @Index(name = "idx_loan_returned_loan_date", columnList = "returned, loan_date"),
+        @Index(name = "idx_loan_returned_due_date", columnList = "returned, due_date")
+})
 public class Loan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+    @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -27,12 +33,28 @@ public class Loan {
     private String customerEmail;
 
     @JoinColumn(name = "id_book")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
 
-    @Column
+    @Column(name = "loan_date")
     private LocalDate loanDate;
 
-    @Column
-    private Boolean returned;
+    @Column(name = "due_date")
+    private LocalDateTime dueDate;
+
+    @Builder.Default
+    @Column(name = "returned", nullable = false)
+    private Boolean returned = false;
+
+    @Column(name = "open_book_id")
+    private Long openBookId;
+
+    @PrePersist
+    @PreUpdate
+    private void normalizeReturned() {
+        if (returned == null) {
+            returned = false;
+        }
+        openBookId = returned || book == null ? null : book.getId();
+    }
 }
@@ -0,0 +1,47 @@
+package com.paulo.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "loan_daily_stats")
+@IdClass(LoanDailyStats.Key.class)
+public class LoanDailyStats {
+
+    @Id
+    @Column(name = "loan_date")
+    private LocalDate loanDate;
+
+    @Id
+    @Column
+    private Integer slot;
+
+    @Column(nullable = false)
+    private Long loans;
+
+    @Column(name = "open_loans", nullable = false)
+    private Long openLoans;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private LocalDate loanDate;
+        private Integer slot;
+    }
+}
@@ -0,0 +1,21 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.model.entity.BookDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface BookDeletionRepository extends JpaRepository<BookDeletion, Long> {
+
+    List<BookDeletion> findByDeletedAtGreaterThanEqual(Instant since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from BookDeletion d where d.deletedAt < :before")
+    int deleteOlderThan(@Param("before") Instant before);
+}
@@ -0,0 +1,22 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.api.dto.TopBookDTO;
+import com.paulo.libraryapi.model.entity.BookLoanStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface BookLoanStatsRepository extends JpaRepository<BookLoanStats, Long> {
+
+    @Query("select new com.paulo.libraryapi.api.dto.TopBookDTO(b.id, b.title, b.author, b.isbn, s.loans) " +
+            "from BookLoanStats s, Book b where b.id = s.bookId order by s.loans desc, s.bookId desc")
+    List<TopBookDTO> findTop(Pageable pageRequest);
+
+    @Modifying
+    @Query(value = "insert into book_loan_stats (book_id, loans) select id_book, count(*) from loan group by id_book",
+            nativeQuery = true)
+    int rebuild();
+}
@@ -1,14 +1,68 @@
 package com.paulo.libraryapi.model.repository;
 
+import com.paulo.libraryapi.api.dto.BookVersionDTO;
 import com.paulo.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
     boolean existsByIsbn(String isbn);
 
     Optional<Book> findByIsbn(String isbn);
 
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Query("select b from Book b where b.id > :after " +
+            "and (:title is null or lower(b.title) like lower(concat('%', :title, '%'))) " +
+            "and (:author is null or lower(b.author) like lower(concat('%', :author, '%'))) " +
+            "and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%'))) " +
+            "and (:available is null or b.available = :available) " +
+            "order by b.id")
+    Slice<Book> findAfter(@Param("after") Long after, @Param("title") String title, @Param("author") String author,
+                          @Param("isbn") String isbn, @Param("available") Boolean available, Pageable pageRequest);
+
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    @Query(value = "select row_count_estimate from information_schema.tables where table_name = 'BOOK'", nativeQuery = true)
+    Long estimateCount();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Book b set b.updatedAt = current_timestamp, b.currentLoanId = (select l.id from Loan l where l.openBookId = b.id), " +
+            "b.available = case when exists (select l.id from Loan l where l.openBookId = b.id) then false else true end " +
+            "where b.id in :ids")
+    int refreshAvailability(@Param("ids") Collection<Long> ids);
+
+    @Query("select b.id from Book b left join Loan l on l.openBookId = b.id where b.id > :after " +
+            "and ((l.id is null and (b.available = false or b.currentLoanId is not null)) " +
+            "or (l.id is not null and (b.available = true or b.currentLoanId is null or b.currentLoanId <> l.id))) " +
+            "order by b.id")
+    List<Long> findAvailabilityDrift(@Param("after") Long after, Pageable pageRequest);
+
+    @Query("select b from Book b where b.updatedAt >= :since order by b.id")
+    List<Book> findUpdatedSince(@Param("since") Instant since);
+
+    @Query("select new com.paulo.libraryapi.api.dto.BookVersionDTO(b.id, b.version, b.updatedAt) from Book b where b.id = :id")
+    Optional<BookVersionDTO> findVersionById(@Param("id") Long id);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAll();
+
 }
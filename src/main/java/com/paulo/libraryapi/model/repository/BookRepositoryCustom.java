@@ -0,0 +1,27 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface BookRepositoryCustom {
+
+    @Transactional(readOnly = true)
+    Page<Book> search(Book filter, Pageable pageRequest);
+
+    long rebuildIndex() throws InterruptedException;
+
+    long countIndexed();
+
+    Optional<Instant> indexedAt();
+
+    void reindex(Collection<Book> books);
+
+    void purge(Collection<Long> ids);
+
+}
@@ -0,0 +1,222 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.exception.BussinessException;
+import com.paulo.libraryapi.model.entity.Book;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.hibernate.search.indexes.IndexReaderAccessor;
+import org.hibernate.search.indexes.spi.DirectoryBasedIndexManager;
+import org.hibernate.search.indexes.spi.IndexManager;
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.FullTextQuery;
+import org.hibernate.search.jpa.Search;
+import org.hibernate.search.orm.spi.SearchIntegratorHelper;
+import org.hibernate.search.query.dsl.BooleanJunction;
+import org.hibernate.search.query.dsl.QueryBuilder;
+import org.hibernate.search.query.dsl.sort.SortContext;
+import org.hibernate.search.query.dsl.sort.SortFieldContext;
+import org.hibernate.search.spi.SearchIntegrator;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class BookRepositoryImpl implements BookRepositoryCustom {
+
+    private static final int FUZZY_MIN_LENGTH = 4;
+
+    private static final Map<String, String> SORT_FIELDS = new HashMap<>();
+
+    static {
+        SORT_FIELDS.put("id", "idSort");
+        SORT_FIELDS.put("title", "titleSort");
+        SORT_FIELDS.put("author", "authorSort");
+        SORT_FIELDS.put("isbn", "isbn");
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public Page<Book> search(Book filter, Pageable pageRequest) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+        QueryBuilder builder = fullTextEntityManager.getSearchFactory()
+                .buildQueryBuilder()
+                .forEntity(Book.class)
+                .get();
+
+        BooleanJunction<?> query = builder.bool();
+        addTextField(builder, query, "title", filter.getTitle());
+        addTextField(builder, query, "author", filter.getAuthor());
+        if (StringUtils.hasText(filter.getIsbn())) {
+            query.must(builder.keyword().wildcard()
+                    .onField("isbn")
+                    .ignoreFieldBridge()
+                    .matching("*" + normalize(filter.getIsbn()) + "*")
+                    .createQuery());
+        }
+        if (filter.getAvailable() != null) {
+            query.must(builder.keyword().onField("available").matching(filter.getAvailable()).createQuery());
+        }
+        if (query.isEmpty()) {
+            query.must(builder.all().createQuery());
+        }
+
+        FullTextQuery fullTextQuery = fullTextEntityManager.createFullTextQuery(query.createQuery(), Book.class);
+        fullTextQuery.setSort(sort(builder, pageRequest));
+        if (pageRequest.isPaged()) {
+            fullTextQuery.setFirstResult((int) pageRequest.getOffset());
+            fullTextQuery.setMaxResults(pageRequest.getPageSize());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Book> content = fullTextQuery.getResultList();
+        return new PageImpl<>(content, pageRequest, fullTextQuery.getResultSize());
+    }
+
+    @Override
+    public long rebuildIndex() throws InterruptedException {
+        EntityManager indexerEntityManager = entityManagerFactory.createEntityManager();
+        try {
+            FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(indexerEntityManager);
+            fullTextEntityManager.createIndexer(Book.class)
+                    .batchSizeToLoadObjects(500)
+                    .threadsToLoadObjects(2)
+                    .startAndWait();
+            return fullTextEntityManager.getSearchFactory()
+                    .getStatistics()
+                    .getNumberOfIndexedEntities(Book.class.getName());
+        } finally {
+            indexerEntityManager.close();
+        }
+    }
+
+    @Override
+    public long countIndexed() {
+        IndexReaderAccessor accessor = searchIntegrator().getIndexReaderAccessor();
+        IndexReader reader = accessor.open(Book.class);
+        try {
+            return reader.numDocs();
+        } finally {
+            accessor.close(reader);
+        }
+    }
+
+    @Override
+    public Optional<Instant> indexedAt() {
+        IndexManager indexManager = searchIntegrator().getIndexManager(Book.class.getName());
+        if (!(indexManager instanceof DirectoryBasedIndexManager)) {
+            return Optional.empty();
+        }
+        Directory directory = ((DirectoryBasedIndexManager) indexManager).getDirectoryProvider().getDirectory();
+        if (!(directory instanceof FSDirectory)) {
+            return Optional.empty();
+        }
+        Instant committedAt = null;
+        try (DirectoryStream<Path> commits = Files.newDirectoryStream(((FSDirectory) directory).getDirectory(),
+                IndexFileNames.SEGMENTS + "_*")) {
+            for (Path commit : commits) {
+                Instant modified = Files.getLastModifiedTime(commit).toInstant();
+                if (committedAt == null || modified.isAfter(committedAt)) {
+                    committedAt = modified;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return Optional.ofNullable(committedAt);
+    }
+
+    @Override
+    public void reindex(Collection<Book> books) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+        books.forEach(fullTextEntityManager::index);
+    }
+
+    @Override
+    public void purge(Collection<Long> ids) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+        ids.forEach(id -> fullTextEntityManager.purge(Book.class, id));
+    }
+
+    private SearchIntegrator searchIntegrator() {
+        return SearchIntegratorHelper.extractFromEntityManagerFactory(entityManagerFactory);
+    }
+
+    private void addTextField(QueryBuilder builder, BooleanJunction<?> query, String field, String value) {
+        for (String term : terms(value)) {
+            BooleanJunction<?> termQuery = builder.bool()
+                    .should(builder.keyword().onField(field).ignoreAnalyzer().matching(term).createQuery())
+                    .should(builder.keyword().wildcard().onField(field).matching(term + "*").createQuery());
+            if (term.length() >= FUZZY_MIN_LENGTH) {
+                termQuery.should(builder.keyword().fuzzy()
+                        .withEditDistanceUpTo(1)
+                        .withPrefixLength(1)
+                        .onField(field)
+                        .ignoreAnalyzer()
+                        .matching(term)
+                        .createQuery());
+            }
+            query.must(termQuery.createQuery());
+        }
+    }
+
+    private Sort sort(QueryBuilder builder, Pageable pageRequest) {
+        if (pageRequest.getSort().isUnsorted()) {
+            return builder.sort().byScore().andByField("idSort").createSort();
+        }
+        SortContext context = builder.sort();
+        SortFieldContext sort = null;
+        for (org.springframework.data.domain.Sort.Order order : pageRequest.getSort()) {
+            String field = SORT_FIELDS.get(order.getProperty());
+            if (field == null) {
+                throw new BussinessException("Ordenação não suportada: " + order.getProperty());
+            }
+            sort = sort == null ? context.byField(field) : sort.andByField(field);
+            sort = order.isAscending() ? sort.asc() : sort.desc();
+        }
+        return sort.andByField("idSort").createSort();
+    }
+
+    private static List<String> terms(String value) {
+        if (!StringUtils.hasText(value)) {
+            return Arrays.asList();
+        }
+        return Arrays.stream(normalize(value).split("[^\\p{Alnum}]+"))
+                .filter(term -> !term.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String normalize(String value) {
+        return Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+}
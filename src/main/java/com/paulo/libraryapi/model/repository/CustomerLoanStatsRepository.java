@@ -0,0 +1,23 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.api.dto.CustomerLoansDTO;
+import com.paulo.libraryapi.model.entity.CustomerLoanStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface CustomerLoanStatsRepository extends JpaRepository<CustomerLoanStats, String> {
+
+    @Query("select new com.paulo.libraryapi.api.dto.CustomerLoansDTO(s.customer, s.loans, s.openLoans) " +
+            "from CustomerLoanStats s order by s.loans desc, s.customer desc")
+    List<CustomerLoansDTO> findTop(Pageable pageRequest);
+
+    @Modifying
+    @Query(value = "insert into customer_loan_stats (customer, loans, open_loans) " +
+            "select customer, count(*), sum(case when returned then 0 else 1 end) from loan where customer is not null group by customer",
+            nativeQuery = true)
+    int rebuild();
+}
@@ -0,0 +1,46 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.model.entity.EmailOutbox;
+import com.paulo.libraryapi.model.entity.EmailStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    @Query("select o.recipient from EmailOutbox o where o.dedupKey = :dedupKey and o.recipient in :recipients")
+    List<String> findRecipientsByDedupKey(@Param("dedupKey") String dedupKey, @Param("recipients") Collection<String> recipients);
+
+    @Query("select o.id from EmailOutbox o where o.status in :statuses and o.nextAttemptAt <= :now order by o.nextAttemptAt")
+    List<Long> findDueIds(@Param("statuses") Collection<EmailStatus> statuses, @Param("now") LocalDateTime now, Pageable pageRequest);
+
+    @Transactional
+    @Modifying
+    @Query("update EmailOutbox o set o.status = 'SENDING', o.claimToken = :token, o.nextAttemptAt = :leaseUntil " +
+            "where o.id in :ids and o.status in :statuses and o.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("statuses") Collection<EmailStatus> statuses,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil, @Param("token") String token);
+
+    List<EmailOutbox> findByClaimToken(String claimToken);
+
+    @Transactional
+    @Modifying
+    @Query("update EmailOutbox o set o.status = 'SENT', o.attempts = o.attempts + 1, o.claimToken = null where o.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("update EmailOutbox o set o.status = :status, o.attempts = :attempts, o.nextAttemptAt = :nextAttemptAt, " +
+            "o.lastError = :error, o.claimToken = null where o.id = :id")
+    int reschedule(@Param("id") Long id, @Param("status") EmailStatus status, @Param("attempts") Integer attempts,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    long countByStatusIn(Collection<EmailStatus> statuses);
+}
@@ -0,0 +1,30 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.model.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    @Transactional
+    @Modifying
+    @Query("update JobLease l set l.owner = :owner, l.leaseUntil = :leaseUntil " +
+            "where l.job = :job and (l.owner = :owner or l.owner is null or l.leaseUntil <= :now)")
+    int acquire(@Param("job") String job, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query(value = "insert into job_lease (job, owner, lease_until) values (:job, :owner, :leaseUntil)", nativeQuery = true)
+    int create(@Param("job") String job, @Param("owner") String owner, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("update JobLease l set l.owner = null where l.job = :job and l.owner = :owner")
+    int release(@Param("job") String job, @Param("owner") String owner);
+}
@@ -0,0 +1,45 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.model.entity.JobPartition;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JobPartitionRepository extends JpaRepository<JobPartition, Long> {
+
+    boolean existsByJobAndRunDate(String job, LocalDate runDate);
+
+    List<JobPartition> findByJobAndRunDateOrderByFromId(String job, LocalDate runDate);
+
+    @Query("select p.id from JobPartition p where p.job = :job and p.runDate = :runDate " +
+            "and (p.status = 'PENDING' or (p.status = 'RUNNING' and p.leaseUntil <= :now)) order by p.fromId")
+    List<Long> findClaimableIds(@Param("job") String job, @Param("runDate") LocalDate runDate,
+                                @Param("now") LocalDateTime now, Pageable pageRequest);
+
+    @Transactional
+    @Modifying
+    @Query("update JobPartition p set p.status = 'RUNNING', p.owner = :owner, p.leaseUntil = :leaseUntil " +
+            "where p.id = :id and (p.status = 'PENDING' or (p.status = 'RUNNING' and p.leaseUntil <= :now))")
+    int claim(@Param("id") Long id, @Param("owner") String owner,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("update JobPartition p set p.lastKey = :lastKey, p.leaseUntil = :leaseUntil " +
+            "where p.id = :id and p.owner = :owner and p.status = 'RUNNING'")
+    int advance(@Param("id") Long id, @Param("owner") String owner,
+                @Param("lastKey") Long lastKey, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("update JobPartition p set p.status = 'DONE', p.leaseUntil = null " +
+            "where p.id = :id and p.owner = :owner and p.status = 'RUNNING'")
+    int finish(@Param("id") Long id, @Param("owner") String owner);
+}
@@ -0,0 +1,11 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.model.entity.LoanArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface LoanArchiveSegmentRepository extends JpaRepository<LoanArchiveSegment, String> {
+
+    List<LoanArchiveSegment> findAllByOrderByName();
+}
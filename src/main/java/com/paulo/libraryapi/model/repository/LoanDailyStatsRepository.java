@@ -0,0 +1,24 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.api.dto.DailyLoansDTO;
+import com.paulo.libraryapi.model.entity.LoanDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LoanDailyStatsRepository extends JpaRepository<LoanDailyStats, LoanDailyStats.Key> {
+
+    @Query("select new com.paulo.libraryapi.api.dto.DailyLoansDTO(s.loanDate, sum(s.loans), sum(s.openLoans)) " +
+            "from LoanDailyStats s where s.loanDate between :from and :to group by s.loanDate order by s.loanDate")
+    List<DailyLoansDTO> findDaily(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "insert into loan_daily_stats (loan_date, slot, loans, open_loans) " +
+            "select loan_date, 0, count(*), sum(case when returned then 0 else 1 end) from loan where loan_date is not null group by loan_date",
+            nativeQuery = true)
+    int rebuild();
+}
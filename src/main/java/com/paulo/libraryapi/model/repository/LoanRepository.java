@@ -4,23 +4,88 @@ import com.paulo.libraryapi.model.entity.Book;
 import com.paulo.libraryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
-    @Query("select case when( count(l.id) > 0) then true else false end from Loan l where l.book = :book and (l.returned is null or l.returned is false)")
-    boolean existsByBookAndNotReturned(Book book);
+public interface LoanRepository extends JpaRepository<Loan, Long> {
 
-    @Query("select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
+    @Query(value = "select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer = :customer",
+            countQuery = "select count(l) from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
     Page<Loan> findByBookIsbnOrCustomer(@Param("customer") String customer, @Param("isbn") String isbn, Pageable pageRequest);
 
+    @Query("select l from Loan as l join fetch l.book as b where (b.isbn = :isbn or l.customer = :customer) and l.id > :after order by l.id")
+    Slice<Loan> findByBookIsbnOrCustomerAfter(@Param("customer") String customer, @Param("isbn") String isbn, @Param("after") Long after, Pageable pageRequest);
+
     Page<Loan> findByBook(Book book, Pageable pageRequest);
 
-    @Query("select l from Loan as l where l.loanDate <= :treeDaysAgo and (l.returned is null or l.returned is false)")
-    List<Loan> findByLoanDateLessThanAndNotReturned(@Param("treeDaysAgo") LocalDate threDaysAgo);
+    Slice<Loan> findByBookAndIdGreaterThanOrderByIdAsc(Book book, Long after, Pageable pageRequest);
+
+    @Query(value = "select row_count_estimate from information_schema.tables where table_name = 'LOAN'", nativeQuery = true)
+    Long estimateCount();
+
+    @Query("select l.openBookId from Loan l where l.openBookId in :bookIds")
+    List<Long> findOpenBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("select l.id from Loan l where l.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select distinct l.book.id from Loan l where l.id in :ids")
+    List<Long> findBookIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select l.loanDate, l.customer, count(l) from Loan l where l.id in :ids group by l.loanDate, l.customer")
+    List<Object[]> countByLoanDateAndCustomer(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("select l.returned from Loan l where l.id = :id")
+    Boolean findReturnedById(@Param("id") Long id);
+
+    @Query(value = "select id from loan where id in (:ids) and returned = false order by id for update", nativeQuery = true)
+    List<Number> lockOpenIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Loan l set l.returned = true, l.openBookId = null where l.id in :ids and l.returned = false")
+    int markReturned(@Param("ids") Collection<Long> ids);
+
+    @Query("select l from Loan as l where l.returned = false and l.dueDate <= :now and l.id > :after and l.id <= :to order by l.id")
+    List<Loan> findLate(@Param("now") LocalDateTime now, @Param("after") Long after, @Param("to") Long to, Pageable pageRequest);
+
+    @Query("select l.id from Loan as l where l.returned = false and l.dueDate <= :now and l.id > :after order by l.id")
+    List<Long> findLateIds(@Param("now") LocalDateTime now, @Param("after") Long after, Pageable pageRequest);
+
+    @Query("select l from Loan as l where l.returned = false and l.dueDate <= :until"
+            + " and (l.dueDate > :after or (l.dueDate = :after and l.id > :afterId)) order by l.dueDate, l.id")
+    List<Loan> findDue(@Param("after") LocalDateTime after, @Param("afterId") Long afterId,
+                       @Param("until") LocalDateTime until, Pageable pageRequest);
+
+    @Query("select count(l) from Loan as l where l.returned = false and l.dueDate <= :now")
+    long countOverdue(@Param("now") LocalDateTime now);
+
+    @Query("select l from Loan as l where l.id in :ids and l.returned = false and l.dueDate <= :now")
+    List<Loan> findOverdue(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query("select l from Loan as l join fetch l.book where l.returned = true and l.loanDate < :loanDate order by l.id")
+    List<Loan> findArchivable(@Param("loanDate") LocalDate loanDate, Pageable pageRequest);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Loan l where l.id in :ids and l.returned = true")
+    int deleteArchived(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select l from Loan as l join fetch l.book order by l.id")
+    Stream<Loan> streamAll();
 }
@@ -0,0 +1,55 @@
+package com.paulo.libraryapi.model.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+@Repository
+public class LoanStatsWriter {
+
+    private static final String DAILY = "merge into loan_daily_stats t " +
+            "using (select cast(? as date) loan_date, cast(? as int) slot, cast(? as bigint) loans, cast(? as bigint) open_loans) s " +
+            "on t.loan_date = s.loan_date and t.slot = s.slot " +
+            "when matched then update set loans = t.loans + s.loans, open_loans = t.open_loans + s.open_loans " +
+            "when not matched then insert (loan_date, slot, loans, open_loans) values (s.loan_date, s.slot, s.loans, s.open_loans)";
+
+    private static final String BOOK = "merge into book_loan_stats t " +
+            "using (select cast(? as bigint) book_id, cast(? as bigint) loans) s on t.book_id = s.book_id " +
+            "when matched then update set loans = t.loans + s.loans " +
+            "when not matched then insert (book_id, loans) values (s.book_id, s.loans)";
+
+    private static final String CUSTOMER = "merge into customer_loan_stats t " +
+            "using (select cast(? as varchar) customer, cast(? as bigint) loans, cast(? as bigint) open_loans) s " +
+            "on t.customer = s.customer " +
+            "when matched then update set loans = t.loans + s.loans, open_loans = t.open_loans + s.open_loans " +
+            "when not matched then insert (customer, loans, open_loans) values (s.customer, s.loans, s.open_loans)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LoanStatsWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void addDaily(LocalDate loanDate, int slot, long loans, long openLoans) {
+        merge(DAILY, Date.valueOf(loanDate), slot, loans, openLoans);
+    }
+
+    public void addBook(Long bookId, long loans) {
+        merge(BOOK, bookId, loans);
+    }
+
+    public void addCustomer(String customer, long loans, long openLoans) {
+        merge(CUSTOMER, customer, loans, openLoans);
+    }
+
+    private void merge(String sql, Object... args) {
+        try {
+            jdbcTemplate.update(sql, args);
+        } catch (DuplicateKeyException ex) {
+            jdbcTemplate.update(sql, args);
+        }
+    }
+}
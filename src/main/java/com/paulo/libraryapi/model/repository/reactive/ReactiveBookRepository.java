@@ -0,0 +1,101 @@
+package com.paulo.libraryapi.model.repository.reactive;
+
+import com.paulo.libraryapi.api.dto.BookVersionDTO;
+import com.paulo.libraryapi.config.ReactiveConfig;
+import com.paulo.libraryapi.model.entity.Book;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+@Profile(ReactiveConfig.PROFILE)
+public class ReactiveBookRepository {
+
+    private static final String SELECT = "select " + Rows.BOOK_COLUMNS + " from book b";
+
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+
+    static {
+        SORT_COLUMNS.put("id", "b.id");
+        SORT_COLUMNS.put("title", "b.title");
+        SORT_COLUMNS.put("author", "b.author");
+        SORT_COLUMNS.put("isbn", "b.isbn");
+    }
+
+    private final DatabaseClient client;
+
+    public ReactiveBookRepository(DatabaseClient client) {
+        this.client = client;
+    }
+
+    public Mono<Book> findById(Long id) {
+        return client.execute(SELECT + " where b.id = :id")
+                .bind("id", id)
+                .map(Rows::book)
+                .one();
+    }
+
+    public Mono<BookVersionDTO> findVersionById(Long id) {
+        return client.execute("select id, version, updated_at from book where id = :id")
+                .bind("id", id)
+                .map(Rows::bookVersion)
+                .one();
+    }
+
+    public Mono<Boolean> existsById(Long id) {
+        return client.execute("select count(*) from book where id = :id")
+                .bind("id", id)
+                .map(row -> row.get(0, Long.class) > 0)
+                .one();
+    }
+
+    public Flux<Book> find(Book filter, Pageable pageRequest) {
+        SqlFilter where = filter(filter);
+        return where.bind(client.execute(SELECT + where.where()
+                        + SqlFilter.orderBy(pageRequest.getSort(), SORT_COLUMNS, "b.id")
+                        + SqlFilter.limit(pageRequest)))
+                .map(Rows::book)
+                .all();
+    }
+
+    public Mono<Long> count(Book filter) {
+        SqlFilter where = filter(filter);
+        return where.bind(client.execute("select count(*) from book b" + where.where()))
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Flux<Book> findAfter(Book filter, Long after, int limit) {
+        SqlFilter where = filter(filter).condition("b.id > :after").parameter("after", after);
+        return where.bind(client.execute(SELECT + where.where() + " order by b.id limit " + limit))
+                .map(Rows::book)
+                .all();
+    }
+
+    public Flux<Book> stream(Book filter) {
+        SqlFilter where = filter(filter);
+        return where.bind(client.execute(SELECT + where.where() + " order by b.id"))
+                .map(Rows::book)
+                .all();
+    }
+
+    public Mono<Long> estimateCount() {
+        return client.execute("select row_count_estimate from information_schema.tables where table_name = 'BOOK'")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private static SqlFilter filter(Book filter) {
+        return new SqlFilter()
+                .contains("b.title", "title", filter.getTitle())
+                .contains("b.author", "author", filter.getAuthor())
+                .contains("b.isbn", "isbn", filter.getIsbn())
+                .equal("b.available", "available", filter.getAvailable());
+    }
+}
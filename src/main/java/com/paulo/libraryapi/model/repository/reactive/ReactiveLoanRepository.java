@@ -0,0 +1,108 @@
+package com.paulo.libraryapi.model.repository.reactive;
+
+import com.paulo.libraryapi.api.dto.LoanFilterDTO;
+import com.paulo.libraryapi.config.ReactiveConfig;
+import com.paulo.libraryapi.model.entity.Loan;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+@Profile(ReactiveConfig.PROFILE)
+public class ReactiveLoanRepository {
+
+    private static final String FROM = " from loan l join book b on b.id = l.id_book";
+    private static final String SELECT = "select l.id, l.customer, l.customer_email, l.loan_date, l.returned, "
+            + Rows.BOOK_COLUMNS + FROM;
+
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+
+    static {
+        SORT_COLUMNS.put("id", "l.id");
+        SORT_COLUMNS.put("customer", "l.customer");
+        SORT_COLUMNS.put("customerEmail", "l.customer_email");
+        SORT_COLUMNS.put("loanDate", "l.loan_date");
+        SORT_COLUMNS.put("returned", "l.returned");
+    }
+
+    private final DatabaseClient client;
+
+    public ReactiveLoanRepository(DatabaseClient client) {
+        this.client = client;
+    }
+
+    public Flux<Loan> find(LoanFilterDTO filter, Pageable pageRequest) {
+        return page(filter(filter), pageRequest);
+    }
+
+    public Mono<Long> count(LoanFilterDTO filter) {
+        return count(filter(filter));
+    }
+
+    public Flux<Loan> findAfter(LoanFilterDTO filter, Long after, int limit) {
+        return after(filter(filter), after, limit);
+    }
+
+    public Flux<Loan> findByBook(Long bookId, Pageable pageRequest) {
+        return page(byBook(bookId), pageRequest);
+    }
+
+    public Mono<Long> countByBook(Long bookId) {
+        return count(byBook(bookId));
+    }
+
+    public Flux<Loan> findByBookAfter(Long bookId, Long after, int limit) {
+        return after(byBook(bookId), after, limit);
+    }
+
+    public Mono<Long> estimateCount() {
+        return client.execute("select row_count_estimate from information_schema.tables where table_name = 'LOAN'")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private Flux<Loan> page(SqlFilter where, Pageable pageRequest) {
+        return where.bind(client.execute(SELECT + where.where()
+                        + SqlFilter.orderBy(pageRequest.getSort(), SORT_COLUMNS, "l.id")
+                        + SqlFilter.limit(pageRequest)))
+                .map(Rows::loan)
+                .all();
+    }
+
+    private Mono<Long> count(SqlFilter where) {
+        return where.bind(client.execute("select count(*)" + FROM + where.where()))
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private Flux<Loan> after(SqlFilter where, Long after, int limit) {
+        where.condition("l.id > :after").parameter("after", after);
+        return where.bind(client.execute(SELECT + where.where() + " order by l.id limit " + limit))
+                .map(Rows::loan)
+                .all();
+    }
+
+    private static SqlFilter byBook(Long bookId) {
+        return new SqlFilter().equal("l.id_book", "book", bookId);
+    }
+
+    private static SqlFilter filter(LoanFilterDTO filter) {
+        SqlFilter where = new SqlFilter();
+        if (filter.getIsbn() != null && filter.getCustomer() != null) {
+            return where.condition("(b.isbn = :isbn or l.customer = :customer)")
+                    .parameter("isbn", filter.getIsbn())
+                    .parameter("customer", filter.getCustomer());
+        }
+        if (filter.getIsbn() == null && filter.getCustomer() == null) {
+            return where.condition("1 = 0");
+        }
+        return where.equal("b.isbn", "isbn", filter.getIsbn())
+                .equal("l.customer", "customer", filter.getCustomer());
+    }
+}
@@ -0,0 +1,56 @@
+package com.paulo.libraryapi.model.repository.reactive;
+
+import com.paulo.libraryapi.api.dto.BookVersionDTO;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import io.r2dbc.spi.Row;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+final class Rows {
+
+    static final String BOOK_COLUMNS = "b.id book_id, b.title, b.author, b.isbn, b.available, b.current_loan_id, "
+            + "b.version, b.updated_at";
+
+    private Rows() {
+    }
+
+    static Book book(Row row) {
+        return Book.builder()
+                .id(row.get("book_id", Long.class))
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .isbn(row.get("isbn", String.class))
+                .available(row.get("available", Boolean.class))
+                .currentLoanId(row.get("current_loan_id", Long.class))
+                .version(row.get("version", Long.class))
+                .updatedAt(instant(row.get("updated_at", LocalDateTime.class)))
+                .build();
+    }
+
+    static BookVersionDTO bookVersion(Row row) {
+        return BookVersionDTO.builder()
+                .id(row.get("id", Long.class))
+                .version(row.get("version", Long.class))
+                .updatedAt(instant(row.get("updated_at", LocalDateTime.class)))
+                .build();
+    }
+
+    static Loan loan(Row row) {
+        return Loan.builder()
+                .id(row.get("id", Long.class))
+                .customer(row.get("customer", String.class))
+                .customerEmail(row.get("customer_email", String.class))
+                .loanDate(row.get("loan_date", LocalDate.class))
+                .returned(row.get("returned", Boolean.class))
+                .book(book(row))
+                .build();
+    }
+
+    private static Instant instant(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -0,0 +1,73 @@
+package com.paulo.libraryapi.model.repository.reactive;
+
+import com.paulo.libraryapi.exception.BussinessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+final class SqlFilter {
+
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    SqlFilter contains(String column, String name, String value) {
+        if (StringUtils.hasText(value)) {
+            conditions.add("lower(" + column + ") like :" + name);
+            parameters.put(name, "%" + value.toLowerCase(Locale.ROOT) + "%");
+        }
+        return this;
+    }
+
+    SqlFilter equal(String column, String name, Object value) {
+        if (value != null) {
+            conditions.add(column + " = :" + name);
+            parameters.put(name, value);
+        }
+        return this;
+    }
+
+    SqlFilter condition(String condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    SqlFilter parameter(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    String where() {
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec) {
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            spec = spec.bind(parameter.getKey(), parameter.getValue());
+        }
+        return spec;
+    }
+
+    static String orderBy(Sort sort, Map<String, String> columns, String idColumn) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = columns.get(order.getProperty());
+            if (column == null) {
+                throw new BussinessException("Ordenação não suportada: " + order.getProperty());
+            }
+            orders.add(column + (order.isAscending() ? " asc" : " desc"));
+        }
+        orders.add(idColumn);
+        return " order by " + String.join(", ", orders);
+    }
+
+    static String limit(Pageable pageRequest) {
+        return pageRequest.isPaged() ? " limit " + pageRequest.getPageSize() + " offset " + pageRequest.getOffset() : "";
+    }
+}
@@ -0,0 +1,17 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.api.dto.BookImportResultDTO;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Service
+public interface BookImportService {
+
+    BookImportResultDTO importBooks(InputStream input, Format format) throws IOException;
+
+    enum Format {
+        NDJSON, CSV
+    }
+}
@@ -1,10 +1,15 @@
 package com.paulo.libraryapi.service;
 
+import com.paulo.libraryapi.api.dto.BookVersionDTO;
 import com.paulo.libraryapi.model.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -13,11 +18,27 @@ public interface BookService {
 
     Optional<Book> getById(Long id);
 
+    Optional<Book> reload(Long id);
+
+    Optional<BookVersionDTO> getVersion(Long id);
+
     void delete(Book book);
 
     Book update(Book book);
 
     Page<Book> find(Book filter, Pageable pageRequest);
 
+    Slice<Book> findAfter(Book filter, Long after, int size);
+
+    long estimateCount();
+
     Optional<Book> getBookByIsbn(String isbn);
+
+    void refreshAvailability(Collection<Long> bookIds);
+
+    List<Long> findAvailabilityDrift(Long after, int size);
+
+    int syncChanges(Instant since);
+
+    int forgetDeletions(Instant before);
 }
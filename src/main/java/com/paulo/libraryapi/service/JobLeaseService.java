@@ -0,0 +1,12 @@
+package com.paulo.libraryapi.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+@Service
+public interface JobLeaseService {
+    boolean acquire(String job, String owner, Duration lease);
+
+    void release(String job, String owner);
+}
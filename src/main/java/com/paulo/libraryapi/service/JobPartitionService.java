@@ -0,0 +1,22 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.model.entity.JobPartition;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public interface JobPartitionService {
+    boolean isPlanned(String job, LocalDate runDate);
+
+    List<JobPartition> plan(String job, LocalDate runDate, List<Long> boundaries);
+
+    Optional<JobPartition> claim(String job, LocalDate runDate, Duration lease);
+
+    boolean advance(JobPartition partition, Long lastKey, Duration lease);
+
+    boolean finish(JobPartition partition);
+}
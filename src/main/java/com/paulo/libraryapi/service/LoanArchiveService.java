@@ -0,0 +1,30 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.model.entity.Loan;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public interface LoanArchiveService {
+
+    long archive();
+
+    void refresh();
+
+    long countByBook(Long bookId);
+
+    List<Loan> findByBook(Long bookId, long after, long offset, int limit);
+
+    long countByIsbnOrCustomer(String isbn, String customer);
+
+    List<Loan> findByIsbnOrCustomer(String isbn, String customer, long after, long offset, int limit);
+
+    Map<LocalDate, Long> countByLoanDate();
+
+    Map<Long, Long> countByBook();
+
+    Map<String, Long> countByCustomer();
+}
@@ -1,26 +1,56 @@
 package com.paulo.libraryapi.service;
 
+import com.paulo.libraryapi.api.dto.LoanDTO;
 import com.paulo.libraryapi.api.dto.LoanFilterDTO;
+import com.paulo.libraryapi.api.dto.LoanOutcomeDTO;
 import com.paulo.libraryapi.model.entity.Book;
 import com.paulo.libraryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public interface LoanService {
+
     Loan save(Loan loan);
 
     Optional<Loan> getById(Long id);
 
     Loan update(Loan loan);
 
+    List<LoanOutcomeDTO> checkout(List<LoanDTO> loans);
+
+    List<LoanOutcomeDTO> returnLoans(List<Long> ids);
+
     Page<Loan> find(LoanFilterDTO filter, Pageable pageRequest);
 
+    Slice<Loan> findAfter(LoanFilterDTO filter, Long after, int size);
+
     Page<Loan> getLoansByBook(Book book, Pageable pageRequest);
 
-    List<Loan> getAllLateLoans();
+    Slice<Loan> getLoansByBookAfter(Book book, Long after, int size);
+
+    Page<Loan> mergeArchived(Page<Loan> live, LoanFilterDTO filter);
+
+    Slice<Loan> mergeArchivedAfter(Slice<Loan> live, LoanFilterDTO filter, Long after, int size);
+
+    Page<Loan> mergeArchivedByBook(Page<Loan> live, Book book);
+
+    Slice<Loan> mergeArchivedByBookAfter(Slice<Loan> live, Book book, Long after, int size);
+
+    long estimateCount();
+
+    List<Loan> getLateLoans(Long after, Long to, int size);
+
+    Optional<Long> getLateLoanIdAfter(Long after, int position);
+
+    List<Loan> getDueLoans(LocalDateTime after, Long afterId, LocalDateTime until, int size);
+
+    List<Loan> getOverdueLoans(Collection<Long> ids);
 }
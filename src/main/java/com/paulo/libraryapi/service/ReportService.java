@@ -0,0 +1,33 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.api.dto.CustomerLoansDTO;
+import com.paulo.libraryapi.api.dto.DailyLoansDTO;
+import com.paulo.libraryapi.api.dto.OverdueLoansDTO;
+import com.paulo.libraryapi.api.dto.TopBookDTO;
+import com.paulo.libraryapi.model.entity.Loan;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public interface ReportService {
+
+    void recordLoans(Collection<Loan> loans);
+
+    void recordReturns(Collection<Long> loanIds, boolean returned);
+
+    List<DailyLoansDTO> dailyLoans(LocalDate from, LocalDate to);
+
+    OverdueLoansDTO overdueLoans();
+
+    List<TopBookDTO> topBooks(int limit);
+
+    List<CustomerLoansDTO> topCustomers(int limit);
+
+    Optional<CustomerLoansDTO> customer(String customer);
+
+    void rebuild();
+}
@@ -0,0 +1,55 @@
+package com.paulo.libraryapi.service.archive;
+
+final class BloomFilter {
+
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASHES = 7;
+
+    private final long[] bits;
+    private final int size;
+
+    private BloomFilter(int keys) {
+        this.bits = new long[Math.max(1, (int) ((long) keys * BITS_PER_KEY + 63 >>> 6))];
+        this.size = bits.length << 6;
+    }
+
+    static BloomFilter of(String[] values) {
+        BloomFilter filter = new BloomFilter(values.length);
+        for (String value : values) {
+            if (value != null) {
+                filter.add(value);
+            }
+        }
+        return filter;
+    }
+
+    boolean mightContain(String value) {
+        long hash = mix(value.hashCode());
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = Math.floorMod(first + i * second, size);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(String value) {
+        long hash = mix(value.hashCode());
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = Math.floorMod(first + i * second, size);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static long mix(long value) {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
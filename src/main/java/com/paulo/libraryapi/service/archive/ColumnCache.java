@@ -0,0 +1,38 @@
+package com.paulo.libraryapi.service.archive;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+public final class ColumnCache {
+
+    private final int maxSegments;
+    private final Map<LoanSegment, Object[]> segments;
+
+    public ColumnCache(int maxSegments) {
+        this.maxSegments = maxSegments;
+        this.segments = new LinkedHashMap<LoanSegment, Object[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LoanSegment, Object[]> eldest) {
+                return size() > ColumnCache.this.maxSegments;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(LoanSegment segment, int column, IntFunction<T> decoder) {
+        synchronized (segments) {
+            Object[] columns = segments.get(segment);
+            if (columns != null && columns[column] != null) {
+                return (T) columns[column];
+            }
+        }
+        T values = decoder.apply(column);
+        if (maxSegments > 0) {
+            synchronized (segments) {
+                segments.computeIfAbsent(segment, key -> new Object[LoanSegment.COLUMNS])[column] = values;
+            }
+        }
+        return values;
+    }
+}
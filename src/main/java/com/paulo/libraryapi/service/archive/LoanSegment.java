@@ -0,0 +1,353 @@
+package com.paulo.libraryapi.service.archive;
+
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+public final class LoanSegment {
+
+    private static final int MAGIC = 0x4C4E5347;
+    private static final int VERSION = 1;
+    private static final long NULL = Long.MIN_VALUE;
+    private static final long[] NONE = new long[0];
+
+    private static final int ID = 0;
+    private static final int BOOK_ID = 1;
+    private static final int LOAN_DATE = 2;
+    private static final int DUE_SECOND = 3;
+    private static final int DUE_NANO = 4;
+    private static final int CUSTOMER = 5;
+    private static final int EMAIL = 6;
+    private static final int ISBN = 7;
+    static final int COLUMNS = 8;
+
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8 + 4 + COLUMNS * (8 + 4);
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final ColumnCache cache;
+    private final int rows;
+    private final long minId;
+    private final long maxId;
+    private final long[] offsets = new long[COLUMNS];
+    private final int[] lengths = new int[COLUMNS];
+    private final long[] books;
+    private final BloomFilter isbns;
+    private final BloomFilter customers;
+
+    private LoanSegment(Path file, MappedByteBuffer buffer, ColumnCache cache) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        this.cache = cache;
+        ByteBuffer header = buffer.duplicate();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a loan archive segment: " + file);
+        }
+        this.rows = header.getInt();
+        this.minId = header.getLong();
+        this.maxId = header.getLong();
+        if (header.getInt() != COLUMNS) {
+            throw new IOException("Unexpected column count in " + file);
+        }
+        for (int column = 0; column < COLUMNS; column++) {
+            offsets[column] = header.getLong();
+            lengths[column] = header.getInt();
+        }
+        this.books = Arrays.stream(decodeLongs(BOOK_ID)).distinct().sorted().toArray();
+        this.isbns = BloomFilter.of(decodeStrings(ISBN));
+        this.customers = BloomFilter.of(decodeStrings(CUSTOMER));
+    }
+
+    public static void write(Path file, List<Loan> loans) throws IOException {
+        ColumnWriter[] columns = new ColumnWriter[COLUMNS];
+        for (int column = 0; column < COLUMNS; column++) {
+            columns[column] = new ColumnWriter();
+        }
+        long previousId = 0;
+        for (Loan loan : loans) {
+            columns[ID].out.writeLong(loan.getId() - previousId);
+            previousId = loan.getId();
+            columns[BOOK_ID].out.writeLong(loan.getBook() == null ? NULL : loan.getBook().getId());
+            columns[LOAN_DATE].out.writeLong(loan.getLoanDate() == null ? NULL : loan.getLoanDate().toEpochDay());
+            columns[DUE_SECOND].out.writeLong(loan.getDueDate() == null ? NULL : loan.getDueDate().toEpochSecond(ZoneOffset.UTC));
+            columns[DUE_NANO].out.writeInt(loan.getDueDate() == null ? 0 : loan.getDueDate().getNano());
+            writeString(columns[CUSTOMER].out, loan.getCustomer());
+            writeString(columns[EMAIL].out, loan.getCustomerEmail());
+            writeString(columns[ISBN].out, loan.getBook() == null ? null : loan.getBook().getIsbn());
+        }
+
+        byte[][] blocks = new byte[COLUMNS][];
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(loans.size());
+        header.putLong(loans.isEmpty() ? 0 : loans.get(0).getId());
+        header.putLong(previousId);
+        header.putInt(COLUMNS);
+        long offset = HEADER_SIZE;
+        for (int column = 0; column < COLUMNS; column++) {
+            blocks[column] = columns[column].compress();
+            header.putLong(offset).putInt(blocks[column].length);
+            offset += blocks[column].length;
+        }
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            for (byte[] block : blocks) {
+                ByteBuffer data = ByteBuffer.wrap(block);
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            channel.force(true);
+        }
+    }
+
+    public static LoanSegment open(Path file) throws IOException {
+        return open(file, new ColumnCache(0));
+    }
+
+    public static LoanSegment open(Path file, ColumnCache cache) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new LoanSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), cache);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getMinId() {
+        return minId;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    public long[] findIdsByBook(Long bookId) {
+        if (bookId == null || Arrays.binarySearch(books, bookId) < 0) {
+            return NONE;
+        }
+        long[] bookIds = longs(BOOK_ID);
+        long[] ids = ids();
+        long[] matches = new long[rows];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (bookIds[row] == bookId) {
+                matches[count++] = ids[row];
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    public long[] findIdsByIsbnOrCustomer(String isbn, String customer) {
+        String[] isbnColumn = isbn != null && isbns.mightContain(isbn) ? strings(ISBN) : null;
+        String[] customerColumn = customer != null && customers.mightContain(customer) ? strings(CUSTOMER) : null;
+        if (isbnColumn == null && customerColumn == null) {
+            return NONE;
+        }
+        long[] ids = ids();
+        long[] matches = new long[rows];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if ((isbnColumn != null && isbn.equals(isbnColumn[row]))
+                    || (customerColumn != null && customer.equals(customerColumn[row]))) {
+                matches[count++] = ids[row];
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    public void countByLoanDate(Map<LocalDate, Long> counts) {
+        for (long loanDate : longs(LOAN_DATE)) {
+            if (loanDate != NULL) {
+                counts.merge(LocalDate.ofEpochDay(loanDate), 1L, Long::sum);
+            }
+        }
+    }
+
+    public void countByBook(Map<Long, Long> counts) {
+        for (long bookId : longs(BOOK_ID)) {
+            if (bookId != NULL) {
+                counts.merge(bookId, 1L, Long::sum);
+            }
+        }
+    }
+
+    public void countByCustomer(Map<String, Long> counts) {
+        for (String customer : strings(CUSTOMER)) {
+            if (customer != null) {
+                counts.merge(customer, 1L, Long::sum);
+            }
+        }
+    }
+
+    public List<Loan> read(long[] loanIds) {
+        if (loanIds.length == 0) {
+            return Collections.emptyList();
+        }
+        long[] ids = ids();
+        int[] matches = new int[loanIds.length];
+        for (int i = 0; i < loanIds.length; i++) {
+            matches[i] = Arrays.binarySearch(ids, loanIds[i]);
+            if (matches[i] < 0) {
+                throw new IllegalArgumentException("Loan " + loanIds[i] + " is not in " + file);
+            }
+        }
+        long[] bookIds = longs(BOOK_ID);
+        long[] loanDates = longs(LOAN_DATE);
+        long[] dueSeconds = longs(DUE_SECOND);
+        int[] dueNanos = ints(DUE_NANO);
+        String[] customers = strings(CUSTOMER);
+        String[] emails = strings(EMAIL);
+        String[] isbns = strings(ISBN);
+
+        List<Loan> loans = new ArrayList<>(matches.length);
+        for (int row : matches) {
+            loans.add(Loan.builder()
+                    .id(ids[row])
+                    .book(bookIds[row] == NULL ? null : Book.builder().id(bookIds[row]).isbn(isbns[row]).build())
+                    .customer(customers[row])
+                    .customerEmail(emails[row])
+                    .loanDate(loanDates[row] == NULL ? null : LocalDate.ofEpochDay(loanDates[row]))
+                    .dueDate(dueSeconds[row] == NULL ? null
+                            : LocalDateTime.ofEpochSecond(dueSeconds[row], dueNanos[row], ZoneOffset.UTC))
+                    .returned(true)
+                    .build());
+        }
+        return loans;
+    }
+
+    private long[] ids() {
+        return cache.get(this, ID, column -> {
+            long[] ids = decodeLongs(column);
+            for (int row = 1; row < rows; row++) {
+                ids[row] += ids[row - 1];
+            }
+            return ids;
+        });
+    }
+
+    private long[] longs(int column) {
+        return cache.get(this, column, this::decodeLongs);
+    }
+
+    private int[] ints(int column) {
+        return cache.get(this, column, this::decodeInts);
+    }
+
+    private String[] strings(int column) {
+        return cache.get(this, column, this::decodeStrings);
+    }
+
+    private long[] decodeLongs(int column) {
+        long[] values = new long[rows];
+        try (DataInputStream in = column(column)) {
+            for (int row = 0; row < rows; row++) {
+                values[row] = in.readLong();
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Corrupted column " + column + " in " + file, ex);
+        }
+        return values;
+    }
+
+    private int[] decodeInts(int column) {
+        int[] values = new int[rows];
+        try (DataInputStream in = column(column)) {
+            for (int row = 0; row < rows; row++) {
+                values[row] = in.readInt();
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Corrupted column " + column + " in " + file, ex);
+        }
+        return values;
+    }
+
+    private String[] decodeStrings(int column) {
+        String[] values = new String[rows];
+        try (DataInputStream in = column(column)) {
+            for (int row = 0; row < rows; row++) {
+                values[row] = in.readBoolean() ? in.readUTF() : null;
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Corrupted column " + column + " in " + file, ex);
+        }
+        return values;
+    }
+
+    private DataInputStream column(int column) {
+        ByteBuffer block = buffer.duplicate();
+        block.position((int) offsets[column]);
+        block.limit((int) offsets[column] + lengths[column]);
+        return new DataInputStream(new InflaterInputStream(new ByteBufferInputStream(block.slice())));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static final class ColumnWriter {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes));
+
+        private byte[] compress() throws IOException {
+            out.close();
+            return bytes.toByteArray();
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.paulo.libraryapi.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.BookImportErrorDTO;
+import com.paulo.libraryapi.api.dto.BookImportResultDTO;
+import com.paulo.libraryapi.api.mapper.BookMapper;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.service.BookImportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private final BookRepository repository;
+    private final BookMapper bookMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final ObjectReader jsonReader;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public BookImportServiceImpl(BookRepository repository,
+                                 BookMapper bookMapper,
+                                 Validator validator,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 @Value("${application.books.import.chunk-size:1000}") int chunkSize,
+                                 @Value("${application.books.import.max-errors:1000}") int maxErrors) {
+        this.repository = repository;
+        this.bookMapper = bookMapper;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.jsonReader = objectMapper.readerFor(BookDTO.class);
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public BookImportResultDTO importBooks(InputStream input, Format format) throws IOException {
+        BookImportResultDTO result = new BookImportResultDTO();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        try (RowReader rows = format == Format.CSV ? new CsvRowReader(reader) : new NdjsonRowReader(reader, jsonReader)) {
+            Row row;
+            while ((row = rows.next()) != null) {
+                result.setTotal(result.getTotal() + 1);
+                if (validate(row, result)) {
+                    chunk.add(row);
+                }
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, result);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+        return result;
+    }
+
+    private boolean validate(Row row, BookImportResultDTO result) {
+        if (row.error != null) {
+            reject(result, row, row.error);
+            return false;
+        }
+        Set<ConstraintViolation<BookDTO>> violations = validator.validate(row.book);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            reject(result, row, message);
+            return false;
+        }
+        return true;
+    }
+
+    private void importChunk(List<Row> chunk, BookImportResultDTO result) {
+        Map<String, Row> byIsbn = new LinkedHashMap<>();
+        for (Row row : chunk) {
+            if (byIsbn.putIfAbsent(row.book.getIsbn(), row) != null) {
+                reject(result, row, "Isbn duplicado no arquivo.");
+            }
+        }
+
+        Set<String> existing = new HashSet<>(repository.findExistingIsbns(byIsbn.keySet()));
+        List<Row> rows = new ArrayList<>(byIsbn.size());
+        for (Row row : byIsbn.values()) {
+            if (existing.contains(row.book.getIsbn())) {
+                reject(result, row, "Isbn já cadastrado.");
+            } else {
+                rows.add(row);
+            }
+        }
+
+        try {
+            insert(rows);
+            result.setImported(result.getImported() + rows.size());
+        } catch (DataIntegrityViolationException ex) {
+            for (Row row : rows) {
+                try {
+                    insert(Collections.singletonList(row));
+                    result.setImported(result.getImported() + 1);
+                } catch (DataIntegrityViolationException rowEx) {
+                    reject(result, row, "Isbn já cadastrado.");
+                }
+            }
+        }
+    }
+
+    private void insert(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        transaction.execute(status -> {
+            for (Row row : rows) {
+                Book book = bookMapper.toEntity(row.book);
+                book.setId(null);
+                entityManager.persist(book);
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return null;
+        });
+    }
+
+    private void reject(BookImportResultDTO result, Row row, String message) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < maxErrors) {
+            String isbn = row.book == null ? null : row.book.getIsbn();
+            result.getErrors().add(BookImportErrorDTO.builder().line(row.line).isbn(isbn).message(message).build());
+        }
+    }
+
+    private static final class Row {
+
+        private final long line;
+        private final BookDTO book;
+        private final String error;
+
+        private Row(long line, BookDTO book, String error) {
+            this.line = line;
+            this.book = book;
+            this.error = error;
+        }
+    }
+
+    private interface RowReader extends Closeable {
+
+        Row next() throws IOException;
+    }
+
+    private static final class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private final ObjectReader jsonReader;
+        private long line;
+
+        private NdjsonRowReader(Reader reader, ObjectReader jsonReader) {
+            this.reader = new BufferedReader(reader);
+            this.jsonReader = jsonReader;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.trim().isEmpty());
+            if (text == null) {
+                return null;
+            }
+            try {
+                return new Row(line, jsonReader.readValue(text), null);
+            } catch (JsonProcessingException ex) {
+                return new Row(line, null, "Linha inválida: " + ex.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class CsvRowReader implements RowReader {
+
+        private final MappingIterator<String[]> iterator;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private long line = 1;
+
+        private CsvRowReader(Reader reader) throws IOException {
+            CsvMapper mapper = new CsvMapper();
+            mapper.enable(CsvParser.Feature.WRAP_AS_ARRAY);
+            mapper.enable(CsvParser.Feature.TRIM_SPACES);
+            mapper.enable(CsvParser.Feature.SKIP_EMPTY_LINES);
+            this.iterator = mapper.readerFor(String[].class).readValues(reader);
+            if (iterator.hasNextValue()) {
+                String[] header = iterator.nextValue();
+                for (int i = 0; i < header.length; i++) {
+                    columns.put(header[i].trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (!iterator.hasNextValue()) {
+                return null;
+            }
+            line++;
+            String[] values = iterator.nextValue();
+            BookDTO book = BookDTO.builder()
+                    .title(column(values, "title"))
+                    .author(column(values, "author"))
+                    .isbn(column(values, "isbn"))
+                    .build();
+            return new Row(line, book, null);
+        }
+
+        private String column(String[] values, String name) {
+            Integer index = columns.get(name);
+            return index == null || index >= values.length ? null : values[index];
+        }
+
+        @Override
+        public void close() throws IOException {
+            iterator.close();
+        }
+    }
+}
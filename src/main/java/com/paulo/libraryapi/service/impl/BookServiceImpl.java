@@ -1,49 +1,106 @@
 package com.paulo.libraryapi.service.impl;
 
+import com.paulo.libraryapi.api.dto.BookVersionDTO;
 import com.paulo.libraryapi.exception.BussinessException;
+import com.paulo.libraryapi.model.entity.BookDeletion;
+import com.paulo.libraryapi.model.repository.BookDeletionRepository;
 import com.paulo.libraryapi.model.repository.BookRepository;
 import com.paulo.libraryapi.service.BookService;
 import com.paulo.libraryapi.model.entity.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static com.paulo.libraryapi.config.CacheConfig.BOOKS;
+import static com.paulo.libraryapi.config.CacheConfig.BOOKS_BY_ISBN;
+import static org.springframework.util.StringUtils.hasText;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+    static final String COALESCED = "books.reads.coalesced";
+
     private BookRepository repository;
+    private BookDeletionRepository deletionRepository;
+    private CacheManager cacheManager;
+    private SingleFlight<Long, Optional<Book>> byIdReads;
+    private SingleFlight<String, Optional<Book>> byIsbnReads;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository, BookDeletionRepository deletionRepository,
+                           CacheManager cacheManager, MeterRegistry meterRegistry) {
         this.repository = repository;
+        this.deletionRepository = deletionRepository;
+        this.cacheManager = cacheManager;
+        this.byIdReads = new SingleFlight<>(meterRegistry.counter(COALESCED, "key", "id"));
+        this.byIsbnReads = new SingleFlight<>(meterRegistry.counter(COALESCED, "key", "isbn"));
     }
 
     @Override
+    @CacheEvict(cacheNames = BOOKS_BY_ISBN, key = "#book.isbn")
     public Book save(Book book) {
-        if(repository.existsByIsbn(book.getIsbn())) {
+        try {
+            return repository.saveAndFlush(book);
+        } catch (DataIntegrityViolationException ex) {
             throw new BussinessException("Isbn já cadastrado.");
         }
-        return repository.save(book);
     }
 
     @Override
+    @Cacheable(cacheNames = BOOKS, key = "#id", unless = "#result == null")
     public Optional<Book> getById(Long id) {
+        return byIdReads.execute(id, () -> repository.findById(id));
+    }
 
+    @Override
+    @CachePut(cacheNames = BOOKS, key = "#id", unless = "#result == null")
+    public Optional<Book> reload(Long id) {
         return repository.findById(id);
     }
 
     @Override
+    public Optional<BookVersionDTO> getVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BOOKS, key = "#book.id"),
+            @CacheEvict(cacheNames = BOOKS_BY_ISBN, key = "#book.isbn")
+    })
+    @Transactional
     public void delete(Book book) {
         if(book ==  null || book.getId() == null) {
             throw new IllegalArgumentException("Book id cant be null.");
         }
         repository.delete(book);
+        deletionRepository.save(BookDeletion.builder().bookId(book.getId()).isbn(book.getIsbn()).deletedAt(Instant.now()).build());
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BOOKS, key = "#book.id"),
+            @CacheEvict(cacheNames = BOOKS_BY_ISBN, key = "#book.isbn")
+    })
     public Book update(Book book) {
         if(book ==  null || book.getId() == null) {
             throw new IllegalArgumentException("Book id cant be null.");
@@ -53,6 +110,9 @@ public class BookServiceImpl implements BookService {
 
     @Override
     public Page<Book> find(Book filter, Pageable pageRequest) {
+        if (hasText(filter.getTitle()) || hasText(filter.getAuthor()) || hasText(filter.getIsbn())) {
+            return repository.search(filter, pageRequest);
+        }
         Example<Book> example = Example.of(filter,
                 ExampleMatcher
                         .matching()
@@ -64,8 +124,73 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    public Slice<Book> findAfter(Book filter, Long after, int size) {
+        return repository.findAfter(after, filter.getTitle(), filter.getAuthor(), filter.getIsbn(), filter.getAvailable(),
+                PageRequest.of(0, size));
+    }
+
+    @Override
+    public long estimateCount() {
+        return repository.estimateCount();
+    }
+
+    @Override
+    @Cacheable(cacheNames = BOOKS_BY_ISBN, key = "#isbn", unless = "#result == null")
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        return byIsbnReads.execute(isbn, () -> repository.findByIsbn(isbn));
+    }
+
+    @Override
+    @Transactional
+    public void refreshAvailability(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        repository.refreshAvailability(bookIds);
+        List<Book> books = repository.findAllById(bookIds);
+        repository.reindex(books);
+
+        Cache byId = cache(BOOKS);
+        Cache byIsbn = cache(BOOKS_BY_ISBN);
+        for (Book book : books) {
+            byId.evict(book.getId());
+            byIsbn.evict(book.getIsbn());
+        }
+    }
+
+    @Override
+    public List<Long> findAvailabilityDrift(Long after, int size) {
+        return repository.findAvailabilityDrift(after, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional
+    public int syncChanges(Instant since) {
+        List<Book> books = repository.findUpdatedSince(since);
+        List<BookDeletion> deletions = deletionRepository.findByDeletedAtGreaterThanEqual(since);
+        repository.reindex(books);
+        repository.purge(deletions.stream().map(BookDeletion::getBookId).collect(Collectors.toList()));
+
+        Cache byId = cache(BOOKS);
+        Cache byIsbn = cache(BOOKS_BY_ISBN);
+        for (Book book : books) {
+            byId.evict(book.getId());
+            byIsbn.evict(book.getIsbn());
+        }
+        for (BookDeletion deletion : deletions) {
+            byId.evict(deletion.getBookId());
+            byIsbn.evict(deletion.getIsbn());
+        }
+        return books.size() + deletions.size();
+    }
+
+    @Override
+    public int forgetDeletions(Instant before) {
+        return deletionRepository.deleteOlderThan(before);
+    }
+
+    private Cache cache(String name) {
+        return new TransactionAwareCacheDecorator(cacheManager.getCache(name));
     }
 
 }
@@ -1,31 +1,56 @@
 package com.paulo.libraryapi.service.impl;
 
+import com.paulo.libraryapi.model.entity.EmailOutbox;
+import com.paulo.libraryapi.model.entity.EmailStatus;
+import com.paulo.libraryapi.model.repository.EmailOutboxRepository;
 import com.paulo.libraryapi.service.EmailService;
-import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    @Value("${application.mail.default-remetent}")
-    private  String remetent;
+    static final String SUBJECT = "Livro com emprestimo atrasado";
 
-    private final JavaMailSender javaMailSender;
+    private EmailOutboxRepository repository;
+
+    public EmailServiceImpl(EmailOutboxRepository repository) {
+        this.repository = repository;
+    }
 
     @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void sendMails(List<String> mailsList, String message) {
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(remetent);
-        mailMessage.setSubject("Livro com emprestimo atrasado");
-        mailMessage.setText(message);
-        mailMessage.setTo(mailsList.toArray(new String[mailsList.size()]));
+        Set<String> recipients = new LinkedHashSet<>(mailsList);
+        if (recipients.isEmpty()) {
+            return;
+        }
+        String dedupKey = LocalDate.now() + ":" + DigestUtils.md5DigestAsHex((SUBJECT + message).getBytes(StandardCharsets.UTF_8));
+        recipients.removeAll(repository.findRecipientsByDedupKey(dedupKey, recipients));
 
-        javaMailSender.send(mailMessage);
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> mails = recipients.stream()
+                .map(recipient -> EmailOutbox.builder()
+                        .recipient(recipient)
+                        .subject(SUBJECT)
+                        .body(message)
+                        .dedupKey(dedupKey)
+                        .status(EmailStatus.PENDING)
+                        .attempts(0)
+                        .nextAttemptAt(now)
+                        .createdAt(now)
+                        .build())
+                .collect(Collectors.toList());
+        repository.saveAll(mails);
     }
 }
@@ -0,0 +1,166 @@
+package com.paulo.libraryapi.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.api.mapper.BookMapper;
+import com.paulo.libraryapi.api.mapper.LoanMapper;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.model.repository.LoanRepository;
+import com.paulo.libraryapi.service.ExportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    private static final CsvSchema BOOK_COLUMNS = CsvSchema.builder()
+            .addColumn("id").addColumn("title").addColumn("author").addColumn("isbn").addColumn("available")
+            .build().withHeader();
+
+    private static final CsvSchema LOAN_COLUMNS = CsvSchema.builder()
+            .addColumn("id").addColumn("isbn").addColumn("customer").addColumn("email")
+            .build().withHeader();
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final int chunkSize;
+
+    public ExportServiceImpl(BookRepository bookRepository,
+                             LoanRepository loanRepository,
+                             BookMapper bookMapper,
+                             LoanMapper loanMapper,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             @Value("${application.export.chunk-size:1000}") int chunkSize) {
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+        this.bookMapper = bookMapper;
+        this.loanMapper = loanMapper;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.csvMapper = new CsvMapper();
+        this.csvMapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBooks(OutputStream output, Format format) throws IOException {
+        try (Stream<Book> books = bookRepository.streamAll();
+             RowWriter<BookDTO> writer = format == Format.CSV
+                     ? new CsvRowWriter<>(csvMapper, BOOK_COLUMNS, output,
+                     book -> new Object[]{book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getAvailable()})
+                     : new NdjsonRowWriter<>(objectMapper, BookDTO.class, output)) {
+            return export(books, bookMapper::toDto, writer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportLoans(OutputStream output, Format format) throws IOException {
+        try (Stream<Loan> loans = loanRepository.streamAll();
+             RowWriter<LoanDTO> writer = format == Format.CSV
+                     ? new CsvRowWriter<>(csvMapper, LOAN_COLUMNS, output,
+                     loan -> new Object[]{loan.getId(), loan.getIsbn(), loan.getCustomer(), loan.getEmail()})
+                     : new NdjsonRowWriter<>(objectMapper, LoanDTO.class, output)) {
+            return export(loans, loanMapper::toDto, writer);
+        }
+    }
+
+    private <E, T> long export(Stream<E> rows, Function<E, T> mapper, RowWriter<T> writer) throws IOException {
+        long count = 0;
+        Iterator<E> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            writer.write(mapper.apply(iterator.next()));
+            if (++count % chunkSize == 0) {
+                entityManager.clear();
+                writer.flush();
+            }
+        }
+        return count;
+    }
+
+    private interface RowWriter<T> extends Closeable {
+
+        void write(T row) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static final class NdjsonRowWriter<T> implements RowWriter<T> {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter writer;
+
+        private NdjsonRowWriter(ObjectMapper objectMapper, Class<T> type, OutputStream output) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(output);
+            this.generator.setRootValueSeparator(null);
+            this.writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            writer.writeValue(generator, row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvRowWriter<T> implements RowWriter<T> {
+
+        private final SequenceWriter writer;
+        private final Function<T, Object[]> columns;
+
+        private CsvRowWriter(CsvMapper csvMapper, CsvSchema schema, OutputStream output, Function<T, Object[]> columns) throws IOException {
+            this.writer = csvMapper.writer(schema).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE).writeValues(output);
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            writer.write(columns.apply(row));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.paulo.libraryapi.service.impl;
+
+import com.paulo.libraryapi.model.repository.JobLeaseRepository;
+import com.paulo.libraryapi.service.JobLeaseService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Service
+public class JobLeaseServiceImpl implements JobLeaseService {
+
+    private JobLeaseRepository repository;
+
+    public JobLeaseServiceImpl(JobLeaseRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public boolean acquire(String job, String owner, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        if (repository.acquire(job, owner, now, now.plus(lease)) > 0) {
+            return true;
+        }
+        if (repository.existsById(job)) {
+            return false;
+        }
+        try {
+            return repository.create(job, owner, now.plus(lease)) > 0;
+        } catch (DataIntegrityViolationException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String job, String owner) {
+        repository.release(job, owner);
+    }
+}
@@ -0,0 +1,92 @@
+package com.paulo.libraryapi.service.impl;
+
+import com.paulo.libraryapi.model.entity.JobPartition;
+import com.paulo.libraryapi.model.entity.JobPartitionStatus;
+import com.paulo.libraryapi.model.repository.JobPartitionRepository;
+import com.paulo.libraryapi.service.JobPartitionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class JobPartitionServiceImpl implements JobPartitionService {
+
+    static final int CLAIM_CANDIDATES = 10;
+
+    private JobPartitionRepository repository;
+
+    public JobPartitionServiceImpl(JobPartitionRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public boolean isPlanned(String job, LocalDate runDate) {
+        return repository.existsByJobAndRunDate(job, runDate);
+    }
+
+    @Override
+    @Transactional
+    public List<JobPartition> plan(String job, LocalDate runDate, List<Long> boundaries) {
+        List<JobPartition> partitions = new ArrayList<>(boundaries.size() + 1);
+        long from = 0L;
+        for (Long to : boundaries) {
+            partitions.add(partition(job, runDate, from, to));
+            from = to;
+        }
+        partitions.add(partition(job, runDate, from, Long.MAX_VALUE));
+        return repository.saveAll(partitions);
+    }
+
+    @Override
+    public Optional<JobPartition> claim(String job, LocalDate runDate, Duration lease) {
+        List<Long> candidates;
+        while (!(candidates = repository.findClaimableIds(job, runDate, LocalDateTime.now(),
+                PageRequest.of(0, CLAIM_CANDIDATES))).isEmpty()) {
+            for (Long id : candidates) {
+                String owner = UUID.randomUUID().toString();
+                LocalDateTime now = LocalDateTime.now();
+                if (repository.claim(id, owner, now, now.plus(lease)) > 0) {
+                    return repository.findById(id);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean advance(JobPartition partition, Long lastKey, Duration lease) {
+        if (repository.advance(partition.getId(), partition.getOwner(), lastKey, LocalDateTime.now().plus(lease)) == 0) {
+            return false;
+        }
+        partition.setLastKey(lastKey);
+        return true;
+    }
+
+    @Override
+    public boolean finish(JobPartition partition) {
+        if (repository.finish(partition.getId(), partition.getOwner()) == 0) {
+            return false;
+        }
+        partition.setStatus(JobPartitionStatus.DONE);
+        return true;
+    }
+
+    private static JobPartition partition(String job, LocalDate runDate, long from, long to) {
+        return JobPartition.builder()
+                .job(job)
+                .runDate(runDate)
+                .fromId(from)
+                .toId(to)
+                .lastKey(from)
+                .status(JobPartitionStatus.PENDING)
+                .build();
+    }
+}
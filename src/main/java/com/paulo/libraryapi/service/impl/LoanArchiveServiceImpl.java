@@ -0,0 +1,308 @@
+package com.paulo.libraryapi.service.impl;
+
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.entity.LoanArchiveSegment;
+import com.paulo.libraryapi.model.repository.LoanArchiveSegmentRepository;
+import com.paulo.libraryapi.model.repository.LoanRepository;
+import com.paulo.libraryapi.service.LoanArchiveService;
+import com.paulo.libraryapi.service.archive.ColumnCache;
+import com.paulo.libraryapi.service.archive.LoanSegment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class LoanArchiveServiceImpl implements LoanArchiveService {
+
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String PENDING_SUFFIX = ".pending";
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final LoanRepository loanRepository;
+    private final LoanArchiveSegmentRepository segmentRepository;
+    private final TransactionTemplate transaction;
+    private final Path directory;
+    private final Duration minAge;
+    private final int segmentSize;
+    private final ColumnCache columnCache;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile List<LoanSegment> segments = Collections.emptyList();
+
+    public LoanArchiveServiceImpl(LoanRepository loanRepository,
+                                  LoanArchiveSegmentRepository segmentRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${application.loans.archive.directory:data/archive}") String directory,
+                                  @Value("${application.loans.archive.min-age:P180D}") Duration minAge,
+                                  @Value("${application.loans.archive.segment-size:10000}") int segmentSize,
+                                  @Value("${application.loans.archive.cached-segments:8}") int cachedSegments) {
+        this.loanRepository = loanRepository;
+        this.segmentRepository = segmentRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.directory = Paths.get(directory);
+        this.minAge = minAge;
+        this.segmentSize = segmentSize;
+        this.columnCache = new ColumnCache(cachedSegments);
+    }
+
+    @Override
+    public long archive() {
+        try {
+            Files.createDirectories(directory);
+            deleteOrphans();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot prepare archive directory " + directory, ex);
+        }
+        LocalDate before = LocalDate.now().minusDays(minAge.toDays());
+        long total = 0;
+        int archived;
+        while ((archived = archiveSegment(before)) > 0) {
+            total += archived;
+        }
+        return total;
+    }
+
+    @Override
+    @PostConstruct
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            Map<Path, LoanSegment> opened = segments.stream()
+                    .collect(Collectors.toMap(LoanSegment::getFile, Function.identity()));
+            List<LoanSegment> current = new ArrayList<>();
+            for (LoanArchiveSegment record : segmentRepository.findAllByOrderByName()) {
+                LoanSegment segment = opened.get(directory.resolve(record.getName() + SEGMENT_SUFFIX));
+                current.add(segment != null ? segment : open(record.getName()));
+            }
+            segments = Collections.unmodifiableList(current);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @Override
+    public long countByBook(Long bookId) {
+        return count(segment -> segment.findIdsByBook(bookId));
+    }
+
+    @Override
+    public List<Loan> findByBook(Long bookId, long after, long offset, int limit) {
+        return find(segment -> segment.findIdsByBook(bookId), after, offset, limit);
+    }
+
+    @Override
+    public long countByIsbnOrCustomer(String isbn, String customer) {
+        return count(segment -> segment.findIdsByIsbnOrCustomer(isbn, customer));
+    }
+
+    @Override
+    public List<Loan> findByIsbnOrCustomer(String isbn, String customer, long after, long offset, int limit) {
+        return find(segment -> segment.findIdsByIsbnOrCustomer(isbn, customer), after, offset, limit);
+    }
+
+    @Override
+    public Map<LocalDate, Long> countByLoanDate() {
+        Map<LocalDate, Long> counts = new HashMap<>();
+        segments.forEach(segment -> segment.countByLoanDate(counts));
+        return counts;
+    }
+
+    @Override
+    public Map<Long, Long> countByBook() {
+        Map<Long, Long> counts = new HashMap<>();
+        segments.forEach(segment -> segment.countByBook(counts));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> countByCustomer() {
+        Map<String, Long> counts = new HashMap<>();
+        segments.forEach(segment -> segment.countByCustomer(counts));
+        return counts;
+    }
+
+    private long count(Function<LoanSegment, long[]> match) {
+        long count = 0;
+        for (LoanSegment segment : segments) {
+            count += match.apply(segment).length;
+        }
+        return count;
+    }
+
+    private List<Loan> find(Function<LoanSegment, long[]> match, long after, long offset, int limit) {
+        List<Cursor> cursors = new ArrayList<>();
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Comparator.comparingLong(Cursor::current));
+        for (LoanSegment segment : segments) {
+            if (segment.getMaxId() <= after) {
+                continue;
+            }
+            long[] ids = match.apply(segment);
+            int start = Arrays.binarySearch(ids, after);
+            Cursor cursor = new Cursor(segment, ids, start < 0 ? -start - 1 : start + 1);
+            if (cursor.position < ids.length) {
+                cursors.add(cursor);
+                queue.add(cursor);
+            }
+        }
+        long skipped = 0;
+        int picked = 0;
+        while (picked < limit && !queue.isEmpty()) {
+            Cursor cursor = queue.poll();
+            if (skipped < offset) {
+                skipped++;
+                cursor.from = cursor.position + 1;
+            } else {
+                picked++;
+            }
+            cursor.position++;
+            if (cursor.position < cursor.ids.length) {
+                queue.add(cursor);
+            }
+        }
+        List<Loan> loans = new ArrayList<>(picked);
+        for (Cursor cursor : cursors) {
+            if (cursor.from < cursor.position) {
+                loans.addAll(cursor.segment.read(Arrays.copyOfRange(cursor.ids, cursor.from, cursor.position)));
+            }
+        }
+        loans.sort(Comparator.comparing(Loan::getId));
+        return loans;
+    }
+
+    private int archiveSegment(LocalDate before) {
+        Path[] pending = new Path[1];
+        LoanArchiveSegment record;
+        try {
+            record = transaction.execute(status -> {
+                List<Loan> loans = loanRepository.findArchivable(before, PageRequest.of(0, segmentSize));
+                if (loans.isEmpty()) {
+                    return null;
+                }
+                LoanArchiveSegment segment = LoanArchiveSegment.builder()
+                        .name(String.format("loans-%013d-%019d", System.currentTimeMillis(), loans.get(0).getId()))
+                        .rows(loans.size())
+                        .minId(loans.get(0).getId())
+                        .maxId(loans.get(loans.size() - 1).getId())
+                        .createdAt(LocalDateTime.now())
+                        .build();
+                pending[0] = directory.resolve(segment.getName() + PENDING_SUFFIX);
+                try {
+                    LoanSegment.write(pending[0], loans);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Cannot write archive segment " + pending[0], ex);
+                }
+                List<Long> ids = loans.stream().map(Loan::getId).collect(Collectors.toList());
+                int deleted = 0;
+                for (int start = 0; start < ids.size(); start += IN_CHUNK_SIZE) {
+                    deleted += loanRepository.deleteArchived(ids.subList(start, Math.min(ids.size(), start + IN_CHUNK_SIZE)));
+                }
+                if (deleted != loans.size()) {
+                    throw new IllegalStateException("Loans changed while being archived, the run will be retried.");
+                }
+                return segmentRepository.save(segment);
+            });
+        } catch (RuntimeException ex) {
+            if (pending[0] != null) {
+                try {
+                    Files.deleteIfExists(pending[0]);
+                } catch (IOException ignored) {
+                }
+            }
+            throw ex;
+        }
+        if (record == null) {
+            return 0;
+        }
+        refresh();
+        return record.getRows();
+    }
+
+    private LoanSegment open(String name) {
+        Path file = directory.resolve(name + SEGMENT_SUFFIX);
+        try {
+            Path pending = directory.resolve(name + PENDING_SUFFIX);
+            if (Files.notExists(file) && Files.exists(pending)) {
+                promote(pending, file);
+            }
+            return LoanSegment.open(file, columnCache);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open archive segment " + file, ex);
+        }
+    }
+
+    private void promote(Path pending, Path file) throws IOException {
+        try {
+            Files.move(pending, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException | FileAlreadyExistsException ex) {
+            if (Files.notExists(file)) {
+                throw ex;
+            }
+        }
+    }
+
+    private void deleteOrphans() throws IOException {
+        Set<String> names = segmentRepository.findAll().stream()
+                .map(LoanArchiveSegment::getName)
+                .collect(Collectors.toSet());
+        List<Path> orphans = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + PENDING_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if (!names.contains(fileName.substring(0, fileName.length() - PENDING_SUFFIX.length()))) {
+                    orphans.add(file);
+                }
+            }
+        }
+        for (Path orphan : orphans) {
+            Files.deleteIfExists(orphan);
+        }
+    }
+
+    private static final class Cursor {
+
+        private final LoanSegment segment;
+        private final long[] ids;
+        private int from;
+        private int position;
+
+        private Cursor(LoanSegment segment, long[] ids, int start) {
+            this.segment = segment;
+            this.ids = ids;
+            this.from = start;
+            this.position = start;
+        }
+
+        private long current() {
+            return ids[position];
+        }
+    }
+}
@@ -1,35 +1,83 @@
 package com.paulo.libraryapi.service.impl;
 
+import com.paulo.libraryapi.api.dto.LoanDTO;
 import com.paulo.libraryapi.api.dto.LoanFilterDTO;
+import com.paulo.libraryapi.api.dto.LoanOutcomeDTO;
+import com.paulo.libraryapi.config.LoanPolicy;
 import com.paulo.libraryapi.exception.BussinessException;
 import com.paulo.libraryapi.model.entity.Book;
 import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.BookRepository;
 import com.paulo.libraryapi.model.repository.LoanRepository;
+import com.paulo.libraryapi.service.BookService;
+import com.paulo.libraryapi.service.LoanArchiveService;
 import com.paulo.libraryapi.service.LoanService;
+import com.paulo.libraryapi.service.ReportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.StringUtils.hasText;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
+    private static final int IN_CHUNK_SIZE = 1000;
+    private static final int CHECKOUT_ATTEMPTS = 3;
+
     private LoanRepository repository;
+    private BookRepository bookRepository;
+    private BookService bookService;
+    private ReportService reportService;
+    private LoanArchiveService archiveService;
+    private LoanPolicy policy;
+    private TransactionTemplate transaction;
+
+    @Value("${application.loans.bulk.max-items:5000}")
+    private int bulkMaxItems;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, BookRepository bookRepository, BookService bookService,
+                           ReportService reportService, LoanArchiveService archiveService, LoanPolicy policy,
+                           PlatformTransactionManager transactionManager) {
         this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.bookService = bookService;
+        this.reportService = reportService;
+        this.archiveService = archiveService;
+        this.policy = policy;
+        this.transaction = new TransactionTemplate(transactionManager);
     }
 
     @Override
+    @Transactional
     public Loan save(Loan loan) {
-        if(repository.existsByBookAndNotReturned(loan.getBook())) {
+        if (loan.getDueDate() == null) {
+            loan.setDueDate(policy.dueDate(loan.getLoanDate()));
+        }
+        Loan saved;
+        try {
+            saved = repository.saveAndFlush(loan);
+        } catch (DataIntegrityViolationException ex) {
             throw new BussinessException("Book already loaned.");
         }
-        return repository.save(loan);
+        bookService.refreshAvailability(Collections.singleton(saved.getBook().getId()));
+        reportService.recordLoans(Collections.singleton(saved));
+        return saved;
     }
 
     @Override
@@ -38,24 +86,283 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        Boolean wasReturned = loan.getId() == null ? null : repository.findReturnedById(loan.getId());
+        Loan saved;
+        try {
+            saved = repository.saveAndFlush(loan);
+        } catch (DataIntegrityViolationException ex) {
+            throw new BussinessException("Book already loaned.");
+        }
+        bookService.refreshAvailability(Collections.singleton(saved.getBook().getId()));
+        if (wasReturned != null && !wasReturned.equals(saved.getReturned())) {
+            reportService.recordReturns(Collections.singleton(saved.getId()), saved.getReturned());
+        }
+        return saved;
+    }
+
+    @Override
+    public List<LoanOutcomeDTO> checkout(List<LoanDTO> loans) {
+        checkBulkSize(loans.size());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> checkoutAttempt(loans));
+            } catch (DataIntegrityViolationException ex) {
+                if (attempt == CHECKOUT_ATTEMPTS) {
+                    throw new BussinessException("Concurrent checkout conflict, please retry.");
+                }
+            }
+        }
+    }
+
+    private List<LoanOutcomeDTO> checkoutAttempt(List<LoanDTO> loans) {
+        List<String> isbns = loans.stream()
+                .map(LoanDTO::getIsbn)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+
+        Map<String, Book> books = new HashMap<>();
+        for (List<String> chunk : partition(isbns)) {
+            bookRepository.findByIsbnIn(chunk).forEach(book -> books.put(book.getIsbn(), book));
+        }
+        Set<Long> loanedBookIds = new HashSet<>();
+        List<Long> bookIds = books.values().stream().map(Book::getId).collect(Collectors.toList());
+        for (List<Long> chunk : partition(bookIds)) {
+            loanedBookIds.addAll(repository.findOpenBookIds(chunk));
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDateTime dueDate = policy.dueDate(today);
+        List<LoanOutcomeDTO> outcomes = new ArrayList<>(loans.size());
+        List<LoanOutcomeDTO> created = new ArrayList<>();
+        List<Loan> entities = new ArrayList<>();
+        for (LoanDTO dto : loans) {
+            LoanOutcomeDTO outcome = LoanOutcomeDTO.builder().isbn(dto.getIsbn()).build();
+            outcomes.add(outcome);
+            Book book = books.get(dto.getIsbn());
+            if (!hasText(dto.getIsbn()) || !hasText(dto.getCustomer()) || !hasText(dto.getEmail())) {
+                outcome.setStatus(LoanOutcomeDTO.Status.INVALID);
+                outcome.setMessage("Isbn, customer and email are required.");
+            } else if (book == null) {
+                outcome.setStatus(LoanOutcomeDTO.Status.BOOK_NOT_FOUND);
+                outcome.setMessage("Book not found for passed isbn.");
+            } else if (!loanedBookIds.add(book.getId())) {
+                outcome.setStatus(LoanOutcomeDTO.Status.BOOK_ALREADY_LOANED);
+                outcome.setMessage("Book already loaned.");
+            } else {
+                entities.add(Loan.builder()
+                        .book(book)
+                        .customer(dto.getCustomer())
+                        .customerEmail(dto.getEmail())
+                        .loanDate(today)
+                        .dueDate(dueDate)
+                        .build());
+                created.add(outcome);
+            }
+        }
+
+        repository.saveAll(entities);
+        repository.flush();
+        List<Long> loanedIds = entities.stream().map(loan -> loan.getBook().getId()).collect(Collectors.toList());
+        for (List<Long> chunk : partition(loanedIds)) {
+            bookService.refreshAvailability(chunk);
+        }
+        reportService.recordLoans(entities);
+        for (int i = 0; i < entities.size(); i++) {
+            created.get(i).setId(entities.get(i).getId());
+            created.get(i).setStatus(LoanOutcomeDTO.Status.CREATED);
+        }
+        return outcomes;
+    }
+
+    @Override
+    @Transactional
+    public List<LoanOutcomeDTO> returnLoans(List<Long> ids) {
+        checkBulkSize(ids.size());
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+
+        Set<Long> returned = new HashSet<>();
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> chunk : partition(distinctIds)) {
+            List<Long> open = repository.lockOpenIds(chunk).stream()
+                    .map(Number::longValue)
+                    .collect(Collectors.toList());
+            if (!open.isEmpty()) {
+                List<Long> bookIds = repository.findBookIds(open);
+                reportService.recordReturns(open, true);
+                repository.markReturned(open);
+                bookService.refreshAvailability(bookIds);
+                returned.addAll(open);
+            }
+            if (open.size() < chunk.size()) {
+                existing.addAll(repository.findExistingIds(chunk));
+            }
+        }
+
+        Set<Long> reported = new HashSet<>();
+        List<LoanOutcomeDTO> outcomes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            LoanOutcomeDTO outcome = LoanOutcomeDTO.builder().id(id).build();
+            if (id == null) {
+                outcome.setStatus(LoanOutcomeDTO.Status.INVALID);
+                outcome.setMessage("Loan id is required.");
+            } else if (returned.contains(id) && reported.add(id)) {
+                outcome.setStatus(LoanOutcomeDTO.Status.RETURNED);
+            } else if (returned.contains(id) || existing.contains(id)) {
+                outcome.setStatus(LoanOutcomeDTO.Status.ALREADY_RETURNED);
+            } else {
+                outcome.setStatus(LoanOutcomeDTO.Status.NOT_FOUND);
+                outcome.setMessage("Loan not found.");
+            }
+            outcomes.add(outcome);
+        }
+        return outcomes;
     }
 
     @Override
     public Page<Loan> find(LoanFilterDTO filter, Pageable pageRequest) {
-        return repository.findByBookIsbnOrCustomer(filter.getCustomer(), filter.getIsbn(), pageRequest);
+        return mergeArchived(repository.findByBookIsbnOrCustomer(filter.getCustomer(), filter.getIsbn(), pageRequest), filter);
+    }
+
+    @Override
+    public Slice<Loan> findAfter(LoanFilterDTO filter, Long after, int size) {
+        Slice<Loan> live = repository.findByBookIsbnOrCustomerAfter(filter.getCustomer(), filter.getIsbn(), after, PageRequest.of(0, size));
+        return mergeArchivedAfter(live, filter, after, size);
     }
 
     @Override
     public Page<Loan> getLoansByBook(Book book, Pageable pageRequest) {
-        return repository.findByBook(book, pageRequest);
+        return mergeArchivedByBook(repository.findByBook(book, pageRequest), book);
     }
 
     @Override
-    public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
-        LocalDate threDaysAgo = LocalDate.now().minusDays(loanDays);
-        return repository.findByLoanDateLessThanAndNotReturned(threDaysAgo);
+    public Slice<Loan> getLoansByBookAfter(Book book, Long after, int size) {
+        Slice<Loan> live = repository.findByBookAndIdGreaterThanOrderByIdAsc(book, after, PageRequest.of(0, size));
+        return mergeArchivedByBookAfter(live, book, after, size);
+    }
+
+    @Override
+    public Page<Loan> mergeArchived(Page<Loan> live, LoanFilterDTO filter) {
+        return merge(live, archiveService.countByIsbnOrCustomer(filter.getIsbn(), filter.getCustomer()),
+                (offset, limit) -> archiveService.findByIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), 0L, offset, limit),
+                null);
+    }
+
+    @Override
+    public Slice<Loan> mergeArchivedAfter(Slice<Loan> live, LoanFilterDTO filter, Long after, int size) {
+        return mergeAfter(live, archiveService.findByIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), after, 0L, size + 1),
+                size, null);
+    }
+
+    @Override
+    public Page<Loan> mergeArchivedByBook(Page<Loan> live, Book book) {
+        return merge(live, archiveService.countByBook(book.getId()),
+                (offset, limit) -> archiveService.findByBook(book.getId(), 0L, offset, limit), book);
+    }
+
+    @Override
+    public Slice<Loan> mergeArchivedByBookAfter(Slice<Loan> live, Book book, Long after, int size) {
+        return mergeAfter(live, archiveService.findByBook(book.getId(), after, 0L, size + 1), size, book);
+    }
+
+    @Override
+    public long estimateCount() {
+        return repository.estimateCount();
+    }
+
+    @Override
+    public List<Loan> getLateLoans(Long after, Long to, int size) {
+        return repository.findLate(LocalDateTime.now(), after, to, PageRequest.of(0, size));
+    }
+
+    @Override
+    public Optional<Long> getLateLoanIdAfter(Long after, int position) {
+        return repository.findLateIds(LocalDateTime.now(), after, PageRequest.of(position - 1, 1)).stream().findFirst();
+    }
+
+    @Override
+    public List<Loan> getDueLoans(LocalDateTime after, Long afterId, LocalDateTime until, int size) {
+        return repository.findDue(after, afterId, until, PageRequest.of(0, size));
+    }
+
+    @Override
+    public List<Loan> getOverdueLoans(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Loan> loans = new ArrayList<>();
+        for (List<Long> chunk : partition(new ArrayList<>(ids))) {
+            loans.addAll(repository.findOverdue(chunk, now));
+        }
+        return loans;
+    }
+
+    private Page<Loan> merge(Page<Loan> live, long archived, BiFunction<Long, Integer, List<Loan>> archive, Book book) {
+        if (archived == 0) {
+            return live;
+        }
+        Pageable pageRequest = live.getPageable();
+        List<Loan> content = new ArrayList<>(live.getContent());
+        long total = live.getTotalElements() + archived;
+        if (pageRequest.isUnpaged()) {
+            content.addAll(withBooks(archive.apply(0L, Integer.MAX_VALUE), book));
+            return new PageImpl<>(content, pageRequest, total);
+        }
+        long from = Math.max(0, pageRequest.getOffset() + content.size() - live.getTotalElements());
+        int missing = pageRequest.getPageSize() - content.size();
+        if (missing > 0 && from < archived) {
+            content.addAll(withBooks(archive.apply(from, missing), book));
+        }
+        return new PageImpl<>(content, pageRequest, total);
+    }
+
+    private Slice<Loan> mergeAfter(Slice<Loan> live, List<Loan> candidates, int size, Book book) {
+        if (candidates.isEmpty()) {
+            return live;
+        }
+        List<Loan> merged = new ArrayList<>(live.getContent());
+        merged.addAll(withBooks(candidates, book));
+        merged.sort(Comparator.comparing(Loan::getId));
+        boolean hasNext = live.hasNext() || merged.size() > size;
+        return new SliceImpl<>(merged.subList(0, Math.min(size, merged.size())), PageRequest.of(0, size), hasNext);
+    }
+
+    private List<Loan> withBooks(List<Loan> archived, Book book) {
+        if (book != null) {
+            archived.forEach(loan -> loan.setBook(book));
+            return archived;
+        }
+        Set<Long> bookIds = archived.stream()
+                .filter(loan -> loan.getBook() != null)
+                .map(loan -> loan.getBook().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Book> books = new HashMap<>();
+        bookRepository.findAllById(bookIds).forEach(found -> books.put(found.getId(), found));
+        archived.stream()
+                .filter(loan -> loan.getBook() != null && books.containsKey(loan.getBook().getId()))
+                .forEach(loan -> loan.setBook(books.get(loan.getBook().getId())));
+        return archived;
+    }
+
+    private void checkBulkSize(int size) {
+        if (size > bulkMaxItems) {
+            throw new BussinessException("Bulk requests are limited to " + bulkMaxItems + " items.");
+        }
+    }
+
+    private static <T> List<List<T>> partition(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int start = 0; start < values.size(); start += IN_CHUNK_SIZE) {
+            chunks.add(values.subList(start, Math.min(values.size(), start + IN_CHUNK_SIZE)));
+        }
+        return chunks;
     }
 }
@@ -0,0 +1,162 @@
+package com.paulo.libraryapi.service.impl;
+
+import com.paulo.libraryapi.api.dto.CustomerLoansDTO;
+import com.paulo.libraryapi.api.dto.DailyLoansDTO;
+import com.paulo.libraryapi.api.dto.OverdueLoansDTO;
+import com.paulo.libraryapi.api.dto.TopBookDTO;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.BookLoanStatsRepository;
+import com.paulo.libraryapi.model.repository.CustomerLoanStatsRepository;
+import com.paulo.libraryapi.model.repository.LoanDailyStatsRepository;
+import com.paulo.libraryapi.model.repository.LoanRepository;
+import com.paulo.libraryapi.model.repository.LoanStatsWriter;
+import com.paulo.libraryapi.service.LoanArchiveService;
+import com.paulo.libraryapi.service.ReportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+public class ReportServiceImpl implements ReportService {
+
+    private final LoanRepository loanRepository;
+    private final LoanDailyStatsRepository dailyRepository;
+    private final BookLoanStatsRepository bookRepository;
+    private final CustomerLoanStatsRepository customerRepository;
+    private final LoanStatsWriter statsWriter;
+    private final LoanArchiveService archiveService;
+    private final int dailySlots;
+
+    public ReportServiceImpl(LoanRepository loanRepository,
+                             LoanDailyStatsRepository dailyRepository,
+                             BookLoanStatsRepository bookRepository,
+                             CustomerLoanStatsRepository customerRepository,
+                             LoanStatsWriter statsWriter,
+                             LoanArchiveService archiveService,
+                             @Value("${application.reports.daily-slots:8}") int dailySlots) {
+        this.loanRepository = loanRepository;
+        this.dailyRepository = dailyRepository;
+        this.bookRepository = bookRepository;
+        this.customerRepository = customerRepository;
+        this.statsWriter = statsWriter;
+        this.archiveService = archiveService;
+        this.dailySlots = dailySlots;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordLoans(Collection<Loan> loans) {
+        Delta delta = new Delta();
+        for (Loan loan : loans) {
+            long open = Boolean.TRUE.equals(loan.getReturned()) ? 0 : 1;
+            delta.daily(loan.getLoanDate(), 1, open);
+            delta.customer(loan.getCustomer(), 1, open);
+            if (loan.getBook() != null) {
+                delta.books.merge(loan.getBook().getId(), 1L, Long::sum);
+            }
+        }
+        apply(delta);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordReturns(Collection<Long> loanIds, boolean returned) {
+        if (loanIds.isEmpty()) {
+            return;
+        }
+        Delta delta = new Delta();
+        for (Object[] row : loanRepository.countByLoanDateAndCustomer(loanIds)) {
+            long open = returned ? -(Long) row[2] : (Long) row[2];
+            delta.daily((LocalDate) row[0], 0, open);
+            delta.customer((String) row[1], 0, open);
+        }
+        apply(delta);
+    }
+
+    @Override
+    public List<DailyLoansDTO> dailyLoans(LocalDate from, LocalDate to) {
+        return dailyRepository.findDaily(from, to);
+    }
+
+    @Override
+    public OverdueLoansDTO overdueLoans() {
+        LocalDateTime now = LocalDateTime.now();
+        return OverdueLoansDTO.builder().dueUntil(now).count(loanRepository.countOverdue(now)).build();
+    }
+
+    @Override
+    public List<TopBookDTO> topBooks(int limit) {
+        return bookRepository.findTop(PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<CustomerLoansDTO> topCustomers(int limit) {
+        return customerRepository.findTop(PageRequest.of(0, limit));
+    }
+
+    @Override
+    public Optional<CustomerLoansDTO> customer(String customer) {
+        return customerRepository.findById(customer)
+                .map(stats -> CustomerLoansDTO.builder()
+                        .customer(stats.getCustomer())
+                        .loans(stats.getLoans())
+                        .openLoans(stats.getOpenLoans())
+                        .build());
+    }
+
+    @Override
+    @Transactional
+    public void rebuild() {
+        dailyRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+        customerRepository.deleteAllInBatch();
+        dailyRepository.rebuild();
+        bookRepository.rebuild();
+        customerRepository.rebuild();
+        archiveService.countByLoanDate().forEach((loanDate, loans) -> statsWriter.addDaily(loanDate, 0, loans, 0));
+        archiveService.countByBook().forEach(statsWriter::addBook);
+        archiveService.countByCustomer().forEach((customer, loans) -> statsWriter.addCustomer(customer, loans, 0));
+    }
+
+    private void apply(Delta delta) {
+        int slot = ThreadLocalRandom.current().nextInt(dailySlots);
+        delta.daily.forEach((loanDate, counts) -> statsWriter.addDaily(loanDate, slot, counts[0], counts[1]));
+        delta.books.forEach(statsWriter::addBook);
+        delta.customers.forEach((customer, counts) -> statsWriter.addCustomer(customer, counts[0], counts[1]));
+    }
+
+    private static final class Delta {
+
+        private final Map<LocalDate, long[]> daily = new TreeMap<>();
+        private final Map<Long, Long> books = new TreeMap<>();
+        private final Map<String, long[]> customers = new TreeMap<>();
+
+        private void daily(LocalDate loanDate, long loans, long open) {
+            if (loanDate != null) {
+                add(daily.computeIfAbsent(loanDate, key -> new long[2]), loans, open);
+            }
+        }
+
+        private void customer(String customer, long loans, long open) {
+            if (customer != null) {
+                add(customers.computeIfAbsent(customer, key -> new long[2]), loans, open);
+            }
+        }
+
+        private static void add(long[] counts, long loans, long open) {
+            counts[0] += loans;
+            counts[1] += open;
+        }
+    }
+}
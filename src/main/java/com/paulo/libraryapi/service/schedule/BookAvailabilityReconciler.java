@@ -0,0 +1,46 @@
+package com.paulo.libraryapi.service.schedule;
+
+import com.paulo.libraryapi.service.BookService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class BookAvailabilityReconciler {
+
+    static final String AVAILABILITY_JOB = "book-availability";
+
+    private final BookService bookService;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Counter repaired;
+
+    public BookAvailabilityReconciler(BookService bookService,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${application.books.availability.batch-size:500}") int batchSize) {
+        this.bookService = bookService;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.repaired = meterRegistry.counter("books.availability.repaired");
+    }
+
+    @Scheduled(cron = "${application.books.availability.reconcile-cron:0 30 3 * * ?}")
+    public long reconcile() {
+        long start = System.nanoTime();
+        long total = 0;
+        Long after = 0L;
+        List<Long> drift;
+        while (!(drift = bookService.findAvailabilityDrift(after, batchSize)).isEmpty()) {
+            bookService.refreshAvailability(drift);
+            repaired.increment(drift.size());
+            total += drift.size();
+            after = drift.get(drift.size() - 1);
+        }
+        JobMetrics.record(meterRegistry, AVAILABILITY_JOB, start, total);
+        return total;
+    }
+}
@@ -0,0 +1,82 @@
+package com.paulo.libraryapi.service.schedule;
+
+import com.paulo.libraryapi.config.ThreadingConfig;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+@Service
+public class BookChangeSync {
+
+    static final String SYNC_JOB = "book-sync";
+
+    private final BookService bookService;
+    private final BookRepository bookRepository;
+    private final MeterRegistry meterRegistry;
+    private final Duration overlap;
+    private final Duration deletionRetention;
+    private final boolean indexOnStartup;
+    private final ThreadFactory threadFactory;
+
+    private volatile Instant lastSync = Instant.now();
+
+    public BookChangeSync(BookService bookService,
+                          BookRepository bookRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${application.books.sync.overlap:PT1M}") Duration overlap,
+                          @Value("${application.books.sync.deletion-retention:P1D}") Duration deletionRetention,
+                          @Value("${application.books.sync.index-on-startup:true}") boolean indexOnStartup,
+                          @Qualifier(ThreadingConfig.SEARCH_INDEX_THREAD_FACTORY) ThreadFactory threadFactory) {
+        this.bookService = bookService;
+        this.bookRepository = bookRepository;
+        this.meterRegistry = meterRegistry;
+        this.overlap = overlap;
+        this.deletionRetention = deletionRetention;
+        this.indexOnStartup = indexOnStartup;
+        this.threadFactory = threadFactory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexOnStartup() {
+        Instant now = Instant.now();
+        lastSync = now;
+        if (!indexOnStartup) {
+            return;
+        }
+        Optional<Instant> indexedAt = bookRepository.indexedAt();
+        if (bookRepository.countIndexed() == bookRepository.count()
+                && indexedAt.map(at -> at.isAfter(now.minus(deletionRetention))).orElse(true)) {
+            lastSync = indexedAt.orElse(now);
+            return;
+        }
+        threadFactory.newThread(() -> {
+            try {
+                bookRepository.rebuildIndex();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }).start();
+    }
+
+    @Scheduled(fixedDelayString = "${application.books.sync.poll-interval:PT10S}")
+    public int sync() {
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        int changes = bookService.syncChanges(lastSync.minus(overlap));
+        bookService.forgetDeletions(now.minus(deletionRetention));
+        lastSync = now;
+        JobMetrics.record(meterRegistry, SYNC_JOB, start, changes);
+        return changes;
+    }
+}
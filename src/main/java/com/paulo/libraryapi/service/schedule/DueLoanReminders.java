@@ -0,0 +1,154 @@
+package com.paulo.libraryapi.service.schedule;
+
+import com.paulo.libraryapi.config.LoanPolicy;
+import com.paulo.libraryapi.config.ThreadingConfig;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.service.EmailService;
+import com.paulo.libraryapi.service.LoanService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class DueLoanReminders {
+
+    static final String DUE_LOANS_JOB = "due-loans";
+    static final String PENDING = "loans.reminders.pending";
+
+    private final LoanService loanService;
+    private final EmailService emailService;
+    private final MeterRegistry meterRegistry;
+    private final String message;
+    private final Duration window;
+    private final int batchSize;
+    private final long tickMillis;
+    private final TimerWheel<Long> wheel;
+    private final ReentrantLock wheelLock = new ReentrantLock();
+    private final ScheduledExecutorService ticker;
+
+    private LocalDateTime loadedUntil;
+    private Long loadedUntilId;
+
+    public DueLoanReminders(LoanService loanService,
+                            EmailService emailService,
+                            LoanPolicy policy,
+                            MeterRegistry meterRegistry,
+                            @Qualifier(ThreadingConfig.DUE_LOANS_THREAD_FACTORY) ThreadFactory threadFactory,
+                            @Value("${application.mail.lateloans.message}") String message,
+                            @Value("${application.loans.reminders.tick:PT1S}") Duration tick,
+                            @Value("${application.loans.reminders.wheel-size:64}") int wheelSize,
+                            @Value("${application.loans.reminders.window:PT1H}") Duration window,
+                            @Value("${application.mail.lateloans.batch-size:500}") int batchSize) {
+        if (window.compareTo(policy.getPeriod()) >= 0) {
+            throw new IllegalStateException("application.loans.reminders.window must be shorter than application.loans.period.");
+        }
+        this.loanService = loanService;
+        this.emailService = emailService;
+        this.meterRegistry = meterRegistry;
+        this.message = message;
+        this.window = window;
+        this.batchSize = batchSize;
+        this.tickMillis = tick.toMillis();
+        this.wheel = new TimerWheel<>(tickMillis, wheelSize, millis(LocalDateTime.now()));
+        this.ticker = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        meterRegistry.gauge(PENDING, this, DueLoanReminders::pending);
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void tick() {
+        try {
+            advance(LocalDateTime.now());
+        } catch (RuntimeException ex) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+        }
+    }
+
+    long advance(LocalDateTime now) {
+        if (loadedUntil == null) {
+            loadedUntil = now.minus(window);
+            loadedUntilId = Long.MAX_VALUE;
+        }
+        List<Long> due = new ArrayList<>();
+        if (loadedUntil.isBefore(now.plus(window.dividedBy(2)))) {
+            load(now.plus(window), due);
+        }
+        wheelLock.lock();
+        try {
+            due.addAll(wheel.advance(millis(now)));
+        } finally {
+            wheelLock.unlock();
+        }
+        if (due.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        long rows = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Loan> loans = loanService.getOverdueLoans(due.subList(from, Math.min(due.size(), from + batchSize)));
+            if (!loans.isEmpty()) {
+                LateLoanMails.send(emailService, loans, message);
+                rows += loans.size();
+            }
+        }
+        JobMetrics.record(meterRegistry, DUE_LOANS_JOB, start, rows);
+        return rows;
+    }
+
+    int pending() {
+        wheelLock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    private void load(LocalDateTime until, List<Long> due) {
+        List<Loan> loans;
+        while (!(loans = loanService.getDueLoans(loadedUntil, loadedUntilId, until, batchSize)).isEmpty()) {
+            wheelLock.lock();
+            try {
+                for (Loan loan : loans) {
+                    if (!wheel.add(millis(loan.getDueDate()), loan.getId())) {
+                        due.add(loan.getId());
+                    }
+                }
+            } finally {
+                wheelLock.unlock();
+            }
+            Loan last = loans.get(loans.size() - 1);
+            loadedUntil = last.getDueDate();
+            loadedUntilId = last.getId();
+        }
+        loadedUntil = until;
+        loadedUntilId = Long.MAX_VALUE;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
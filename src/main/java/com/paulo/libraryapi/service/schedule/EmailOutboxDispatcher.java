@@ -0,0 +1,187 @@
+package com.paulo.libraryapi.service.schedule;
+
+import com.paulo.libraryapi.config.ThreadingConfig;
+import com.paulo.libraryapi.model.entity.EmailOutbox;
+import com.paulo.libraryapi.model.entity.EmailStatus;
+import com.paulo.libraryapi.model.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final List<EmailStatus> DUE_STATUSES = Arrays.asList(EmailStatus.PENDING, EmailStatus.SENDING);
+
+    private final EmailOutboxRepository repository;
+    private final JavaMailSender javaMailSender;
+    private final String remetent;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration lease;
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer sendDuration;
+    private final DistributionSummary sendBatchSize;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository repository,
+                                 JavaMailSender javaMailSender,
+                                 MeterRegistry meterRegistry,
+                                 @Qualifier(ThreadingConfig.MAIL_OUTBOX_THREAD_FACTORY) ThreadFactory threadFactory,
+                                 @Value("${application.mail.default-remetent}") String remetent,
+                                 @Value("${application.mail.outbox.workers:4}") int workers,
+                                 @Value("${application.mail.outbox.queue-capacity:100}") int queueCapacity,
+                                 @Value("${application.mail.outbox.batch-size:50}") int batchSize,
+                                 @Value("${application.mail.outbox.max-attempts:5}") int maxAttempts,
+                                 @Value("${application.mail.outbox.backoff:PT30S}") Duration backoff,
+                                 @Value("${application.mail.outbox.lease:PT5M}") Duration lease) {
+        this.repository = repository;
+        this.javaMailSender = javaMailSender;
+        this.remetent = remetent;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.lease = lease;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+
+        new ExecutorServiceMetrics(executor, "mail.outbox", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("mail.outbox.queue.depth", queueDepth, AtomicLong::get)
+                .description("Emails waiting in the outbox to be delivered")
+                .register(meterRegistry);
+        this.sent = meterRegistry.counter("mail.outbox.sent");
+        this.retried = meterRegistry.counter("mail.outbox.retried");
+        this.failed = meterRegistry.counter("mail.outbox.failed");
+        this.sendDuration = Timer.builder("mail.send")
+                .description("Time spent delivering a batch of emails to the SMTP server")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.sendBatchSize = DistributionSummary.builder("mail.send.batch.size")
+                .description("Emails delivered per SMTP batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.mail.outbox.poll-interval:PT5S}")
+    public void dispatch() {
+        queueDepth.set(repository.countByStatusIn(DUE_STATUSES));
+
+        while (executor.getQueue().remainingCapacity() > 0) {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> due = repository.findDueIds(DUE_STATUSES, now, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) {
+                return;
+            }
+
+            String token = UUID.randomUUID().toString();
+            if (repository.claim(due, DUE_STATUSES, now, now.plus(lease), token) == 0) {
+                continue;
+            }
+            List<EmailOutbox> claimed = repository.findByClaimToken(token);
+            try {
+                executor.execute(() -> deliver(claimed));
+            } catch (RejectedExecutionException ex) {
+                claimed.forEach(mail -> repository.reschedule(mail.getId(), EmailStatus.PENDING, mail.getAttempts(), now, mail.getLastError()));
+                return;
+            }
+        }
+    }
+
+    void deliver(List<EmailOutbox> mails) {
+        SimpleMailMessage[] messages = mails.stream().map(this::toMessage).toArray(SimpleMailMessage[]::new);
+
+        Map<Object, Exception> failures;
+        sendBatchSize.record(messages.length);
+        long start = System.nanoTime();
+        try {
+            javaMailSender.send(messages);
+            failures = Collections.emptyMap();
+        } catch (MailSendException ex) {
+            failures = ex.getFailedMessages().isEmpty() ? failAll(messages, ex) : ex.getFailedMessages();
+        } catch (MailException ex) {
+            failures = failAll(messages, ex);
+        } finally {
+            sendDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        List<Long> delivered = new ArrayList<>(mails.size());
+        for (int i = 0; i < messages.length; i++) {
+            Exception failure = failures.get(messages[i]);
+            if (failure == null) {
+                delivered.add(mails.get(i).getId());
+            } else {
+                retry(mails.get(i), failure);
+            }
+        }
+        if (!delivered.isEmpty()) {
+            repository.markSent(delivered);
+            sent.increment(delivered.size());
+        }
+    }
+
+    private void retry(EmailOutbox mail, Exception failure) {
+        int attempts = mail.getAttempts() + 1;
+        String error = Objects.toString(failure.getMessage(), failure.getClass().getName());
+        error = error.length() > 1000 ? error.substring(0, 1000) : error;
+        if (attempts >= maxAttempts) {
+            repository.reschedule(mail.getId(), EmailStatus.FAILED, attempts, mail.getNextAttemptAt(), error);
+            failed.increment();
+        } else {
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff.multipliedBy(1L << (attempts - 1)));
+            repository.reschedule(mail.getId(), EmailStatus.PENDING, attempts, nextAttemptAt, error);
+            retried.increment();
+        }
+    }
+
+    private Map<Object, Exception> failAll(SimpleMailMessage[] messages, Exception ex) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        for (SimpleMailMessage message : messages) {
+            failures.put(message, ex);
+        }
+        return failures;
+    }
+
+    private SimpleMailMessage toMessage(EmailOutbox mail) {
+        SimpleMailMessage mailMessage = new SimpleMailMessage();
+        mailMessage.setFrom(remetent);
+        mailMessage.setSubject(mail.getSubject());
+        mailMessage.setText(mail.getBody());
+        mailMessage.setTo(mail.getRecipient());
+        return mailMessage;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,27 @@
+package com.paulo.libraryapi.service.schedule;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+final class JobMetrics {
+
+    static final String DURATION = "job.duration";
+    static final String ROWS = "job.rows";
+
+    private JobMetrics() {
+    }
+
+    static void record(MeterRegistry meterRegistry, String job, long startNanos, long rows) {
+        Timer.builder(DURATION)
+                .tag("job", job)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(ROWS)
+                .tag("job", job)
+                .register(meterRegistry)
+                .record(rows);
+    }
+}
@@ -0,0 +1,35 @@
+package com.paulo.libraryapi.service.schedule;
+
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.service.EmailService;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+final class LateLoanMails {
+
+    private static final int SEND_ATTEMPTS = 3;
+
+    private LateLoanMails() {
+    }
+
+    static void send(EmailService emailService, List<Loan> loans, String message) {
+        List<String> emails = loans.stream()
+                .map(Loan::getCustomerEmail)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                emailService.sendMails(emails, message);
+                return;
+            } catch (DataIntegrityViolationException ex) {
+                if (attempt == SEND_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+}
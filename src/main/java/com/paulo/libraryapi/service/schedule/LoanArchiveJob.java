@@ -0,0 +1,54 @@
+package com.paulo.libraryapi.service.schedule;
+
+import com.paulo.libraryapi.service.JobLeaseService;
+import com.paulo.libraryapi.service.LoanArchiveService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Service
+public class LoanArchiveJob {
+
+    static final String ARCHIVE_JOB = "loan-archive";
+
+    private final LoanArchiveService archiveService;
+    private final JobLeaseService leaseService;
+    private final MeterRegistry meterRegistry;
+    private final Duration lease;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public LoanArchiveJob(LoanArchiveService archiveService,
+                          JobLeaseService leaseService,
+                          MeterRegistry meterRegistry,
+                          @Value("${application.loans.archive.lease:PT1H}") Duration lease) {
+        this.archiveService = archiveService;
+        this.leaseService = leaseService;
+        this.meterRegistry = meterRegistry;
+        this.lease = lease;
+    }
+
+    @Scheduled(cron = "${application.loans.archive.cron:0 0 2 * * ?}")
+    public long archive() {
+        if (!leaseService.acquire(ARCHIVE_JOB, instanceId, lease)) {
+            return 0;
+        }
+        try {
+            long start = System.nanoTime();
+            long rows = archiveService.archive();
+            JobMetrics.record(meterRegistry, ARCHIVE_JOB, start, rows);
+            return rows;
+        } finally {
+            leaseService.release(ARCHIVE_JOB, instanceId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.loans.archive.refresh-interval:PT1M}")
+    public void refresh() {
+        archiveService.refresh();
+    }
+}
@@ -1,38 +1,177 @@
 package com.paulo.libraryapi.service.schedule;
 
+import com.paulo.libraryapi.config.ThreadingConfig;
+import com.paulo.libraryapi.model.entity.JobPartition;
 import com.paulo.libraryapi.model.entity.Loan;
 import com.paulo.libraryapi.service.EmailService;
+import com.paulo.libraryapi.service.JobLeaseService;
+import com.paulo.libraryapi.service.JobPartitionService;
 import com.paulo.libraryapi.service.LoanService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
-@RequiredArgsConstructor
 public class ScheduleServices {
 
     private static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
 
-    @Value("${application.mail.lateloans.message}")
-    private String message;
+    static final String LATE_LOANS_JOB = "late-loans";
 
     private final LoanService loanService;
-
     private final EmailService emailService;
+    private final JobLeaseService leaseService;
+    private final JobPartitionService partitionService;
+    private final MeterRegistry meterRegistry;
+    private final String message;
+    private final int batchSize;
+    private final int partitionSize;
+    private final int workers;
+    private final Duration lease;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ExecutorService coordinator;
+    private final ExecutorService executor;
+    private final AtomicBoolean resumeQueued = new AtomicBoolean();
+
+    public ScheduleServices(LoanService loanService,
+                            EmailService emailService,
+                            JobLeaseService leaseService,
+                            JobPartitionService partitionService,
+                            MeterRegistry meterRegistry,
+                            @Qualifier(ThreadingConfig.LATE_LOANS_THREAD_FACTORY) ThreadFactory threadFactory,
+                            @Value("${application.mail.lateloans.message}") String message,
+                            @Value("${application.mail.lateloans.batch-size:500}") int batchSize,
+                            @Value("${application.mail.lateloans.partition-size:10000}") int partitionSize,
+                            @Value("${application.mail.lateloans.workers:2}") int workers,
+                            @Value("${application.mail.lateloans.lease:PT5M}") Duration lease) {
+        this.loanService = loanService;
+        this.emailService = emailService;
+        this.leaseService = leaseService;
+        this.partitionService = partitionService;
+        this.meterRegistry = meterRegistry;
+        this.message = message;
+        this.batchSize = batchSize;
+        this.partitionSize = partitionSize;
+        this.workers = workers;
+        this.lease = lease;
+        this.coordinator = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+    }
 
     @Scheduled(cron = CRON_LATE_LOANS)
-    public void sendMailToLateLoans() {
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> mailsList = allLateLoans.stream()
-                .map(loan -> loan.getCustomerEmail())
-                .collect(Collectors.toList());
+    public Future<?> sendMailToLateLoans() {
+        LocalDate runDate = LocalDate.now();
+        return coordinator.submit(() -> {
+            planLateLoans(runDate);
+            processLateLoans(runDate);
+        });
+    }
 
-        emailService.sendMails(mailsList, message);
+    @Scheduled(fixedDelayString = "${application.mail.lateloans.poll-interval:PT1M}")
+    public Future<?> resumeLateLoans() {
+        if (!resumeQueued.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return coordinator.submit(() -> {
+            resumeQueued.set(false);
+            processLateLoans(LocalDate.now());
+        });
+    }
 
+    boolean planLateLoans(LocalDate runDate) {
+        if (!leaseService.acquire(LATE_LOANS_JOB, instanceId, lease)) {
+            return false;
+        }
+        try {
+            if (partitionService.isPlanned(LATE_LOANS_JOB, runDate)) {
+                return false;
+            }
+            List<Long> boundaries = new ArrayList<>();
+            Optional<Long> boundary = loanService.getLateLoanIdAfter(0L, partitionSize);
+            while (boundary.isPresent()) {
+                boundaries.add(boundary.get());
+                boundary = loanService.getLateLoanIdAfter(boundary.get(), partitionSize);
+            }
+            partitionService.plan(LATE_LOANS_JOB, runDate, boundaries);
+            return true;
+        } finally {
+            leaseService.release(LATE_LOANS_JOB, instanceId);
+        }
+    }
+
+    long processLateLoans(LocalDate runDate) {
+        long start = System.nanoTime();
+        AtomicInteger partitions = new AtomicInteger();
+        Callable<Long> worker = () -> work(runDate, partitions);
+        long rows = 0;
+        try {
+            for (Future<Long> result : executor.invokeAll(Collections.nCopies(workers, worker))) {
+                rows += result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending late loan emails.", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Failed to send late loan emails.", ex.getCause());
+        }
+        if (partitions.get() > 0) {
+            JobMetrics.record(meterRegistry, LATE_LOANS_JOB, start, rows);
+        }
+        return rows;
+    }
+
+    private long work(LocalDate runDate, AtomicInteger partitions) {
+        long rows = 0;
+        Optional<JobPartition> partition;
+        while ((partition = partitionService.claim(LATE_LOANS_JOB, runDate, lease)).isPresent()) {
+            partitions.incrementAndGet();
+            rows += process(partition.get());
+        }
+        return rows;
+    }
+
+    private long process(JobPartition partition) {
+        long rows = 0;
+        List<Loan> loans;
+        while (!(loans = loanService.getLateLoans(partition.getLastKey(), partition.getToId(), batchSize)).isEmpty()) {
+            LateLoanMails.send(emailService, loans, message);
+            rows += loans.size();
+            if (!partitionService.advance(partition, loans.get(loans.size() - 1).getId(), lease)) {
+                return rows;
+            }
+        }
+        partitionService.finish(partition);
+        return rows;
+    }
 
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdown();
+        executor.shutdown();
     }
 }
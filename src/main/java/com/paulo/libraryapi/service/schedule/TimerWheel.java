@@ -0,0 +1,108 @@
+package com.paulo.libraryapi.service.schedule;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+final class TimerWheel<T> {
+
+    private final int wheelSize;
+    private final Level root;
+    private long now;
+    private int size;
+
+    TimerWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("Timer wheel needs a positive tick and at least two slots.");
+        }
+        this.wheelSize = wheelSize;
+        this.root = new Level(tickMillis, startMillis);
+        this.now = startMillis;
+    }
+
+    boolean add(long deadlineMillis, T task) {
+        if (deadlineMillis <= now) {
+            return false;
+        }
+        root.add(new Entry<>(deadlineMillis, task));
+        size++;
+        return true;
+    }
+
+    List<T> advance(long timeMillis) {
+        if (timeMillis <= now) {
+            return Collections.emptyList();
+        }
+        now = timeMillis;
+        List<Entry<T>> drained = new ArrayList<>();
+        root.drain(timeMillis, drained);
+        List<T> expired = new ArrayList<>();
+        for (Entry<T> entry : drained) {
+            if (entry.deadline <= timeMillis) {
+                expired.add(entry.task);
+            } else {
+                root.add(entry);
+            }
+        }
+        size -= expired.size();
+        return expired;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private final class Level {
+
+        private final long tick;
+        private final List<ArrayDeque<Entry<T>>> buckets;
+        private long slot;
+        private Level overflow;
+
+        private Level(long tick, long timeMillis) {
+            this.tick = tick;
+            this.slot = Math.floorDiv(timeMillis, tick);
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new ArrayDeque<>());
+            }
+        }
+
+        private void add(Entry<T> entry) {
+            long target = Math.floorDiv(entry.deadline, tick);
+            if (target < slot + wheelSize) {
+                buckets.get((int) Math.floorMod(target, (long) wheelSize)).add(entry);
+                return;
+            }
+            if (overflow == null) {
+                overflow = new Level(Math.multiplyExact(tick, (long) wheelSize), slot * tick);
+            }
+            overflow.add(entry);
+        }
+
+        private void drain(long timeMillis, List<Entry<T>> drained) {
+            long target = Math.floorDiv(timeMillis, tick);
+            for (long current = slot; current <= target && current < slot + wheelSize; current++) {
+                ArrayDeque<Entry<T>> bucket = buckets.get((int) Math.floorMod(current, (long) wheelSize));
+                drained.addAll(bucket);
+                bucket.clear();
+            }
+            slot = target;
+            if (overflow != null) {
+                overflow.drain(timeMillis, drained);
+            }
+        }
+    }
+
+    private static final class Entry<T> {
+
+        private final long deadline;
+        private final T task;
+
+        private Entry(long deadline, T task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.paulo.libraryapi.api.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdempotencyFilterTest {
+
+    @Test
+    @DisplayName("Deve entregar o corpo guardado a um ReadListener.")
+    public void readListenerTest() throws Exception {
+        IdempotencyFilter filter = new IdempotencyFilter(new ObjectMapper(), 10, Duration.ofMinutes(1), 1);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/books");
+        request.addHeader(IdempotencyFilter.HEADER, "listener");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent("{\"isbn\":\"123\"}".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        boolean[] allRead = new boolean[1];
+
+        filter.doFilter(request, new MockHttpServletResponse(), (chainRequest, chainResponse) -> {
+            ServletInputStream input = chainRequest.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    int read;
+                    while (input.isReady() && (read = input.read()) != -1) {
+                        received.write(read);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allRead[0] = true;
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    throw new AssertionError(throwable);
+                }
+            });
+            ((HttpServletResponse) chainResponse).setStatus(201);
+        });
+
+        assertThat(received.toString(StandardCharsets.UTF_8.name())).isEqualTo("{\"isbn\":\"123\"}");
+        assertThat(allRead[0]).isTrue();
+    }
+}
@@ -0,0 +1,112 @@
+package com.paulo.libraryapi.api.idempotency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdempotencyStoreTest {
+
+    static final byte[] FINGERPRINT = "a".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("Deve devolver a resposta gravada para a mesma chave e o mesmo pedido.")
+    public void replayTest() {
+        IdempotencyStore store = new IdempotencyStore(10, Duration.ofMinutes(1), 4);
+
+        assertThat(store.begin("k", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.ACQUIRED);
+        assertThat(store.begin("k", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.IN_FLIGHT);
+        assertThat(store.begin("k", "b".getBytes(StandardCharsets.UTF_8)).getState())
+                .isEqualTo(IdempotencyStore.State.MISMATCH);
+
+        store.complete("k", new IdempotencyStore.Response(201, "application/json", "1".getBytes(StandardCharsets.UTF_8)));
+
+        IdempotencyStore.Claim replay = store.begin("k", FINGERPRINT);
+        assertThat(replay.getState()).isEqualTo(IdempotencyStore.State.COMPLETED);
+        assertThat(replay.getResponse().getStatus()).isEqualTo(201);
+        assertThat(replay.getResponse().getBody()).isEqualTo("1".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Deve liberar a chave quando o pedido for abandonado e manter as respostas concluidas.")
+    public void abandonTest() {
+        IdempotencyStore store = new IdempotencyStore(10, Duration.ofMinutes(1), 4);
+        store.begin("k", FINGERPRINT);
+        store.abandon("k");
+        assertThat(store.begin("k", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.ACQUIRED);
+
+        store.complete("k", new IdempotencyStore.Response(201, null, new byte[0]));
+        store.abandon("k");
+        assertThat(store.begin("k", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("Deve expirar as chaves apos o ttl e descartar so as respostas concluidas ao atingir a capacidade.")
+    public void expireAndEvictTest() {
+        AtomicLong now = new AtomicLong();
+        IdempotencyStore store = new IdempotencyStore(3, Duration.ofNanos(100), 1, now::get);
+        store.begin("a", FINGERPRINT);
+        store.begin("b", FINGERPRINT);
+        store.begin("c", FINGERPRINT);
+        assertThat(store.begin("d", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.FULL);
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.begin("a", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.IN_FLIGHT);
+
+        now.set(50);
+        store.complete("b", new IdempotencyStore.Response(201, null, new byte[0]));
+        assertThat(store.begin("d", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.ACQUIRED);
+        assertThat(store.begin("b", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.FULL);
+        assertThat(store.size()).isEqualTo(3);
+
+        now.set(120);
+        assertThat(store.begin("c", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.ACQUIRED);
+        assertThat(store.begin("d", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.IN_FLIGHT);
+        assertThat(store.size()).isEqualTo(2);
+        now.set(150);
+        assertThat(store.begin("d", FINGERPRINT).getState()).isEqualTo(IdempotencyStore.State.ACQUIRED);
+    }
+
+    @Test
+    @DisplayName("Deve conceder cada chave a um unico pedido concorrente.")
+    public void concurrentBeginTest() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(10000, Duration.ofMinutes(1), 8);
+        int threads = 8;
+        int keys = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int acquired = 0;
+                    for (int k = 0; k < keys; k++) {
+                        if (store.begin("key-" + k, FINGERPRINT).getState() == IdempotencyStore.State.ACQUIRED) {
+                            acquired++;
+                        }
+                    }
+                    return acquired;
+                }));
+            }
+            start.countDown();
+            int acquired = 0;
+            for (Future<Integer> result : results) {
+                acquired += result.get();
+            }
+            assertThat(acquired).isEqualTo(keys);
+            assertThat(store.size()).isEqualTo(keys);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
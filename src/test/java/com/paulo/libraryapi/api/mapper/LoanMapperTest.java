@@ -0,0 +1,58 @@
+package com.paulo.libraryapi.api.mapper;
+
+import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoanMapperTest {
+
+    LoanMapper mapper = Mappers.getMapper(LoanMapper.class);
+
+    @Test
+    @DisplayName("Deve converter um emprestimo com os dados do livro.")
+    public void toDtoTest() {
+        Loan loan = createLoan();
+
+        LoanDTO dto = mapper.toDto(loan);
+
+        assertThat(dto.getId()).isEqualTo(1l);
+        assertThat(dto.getIsbn()).isEqualTo("123");
+        assertThat(dto.getCustomer()).isEqualTo("Fulano");
+        assertThat(dto.getEmail()).isEqualTo("fulano@email.com");
+        assertThat(dto.getBook().getId()).isEqualTo(1l);
+        assertThat(dto.getBook().getTitle()).isEqualTo("As aventuras");
+        assertThat(dto.getBook().getAuthor()).isEqualTo("Artur");
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar o livro ja convertido.")
+    public void toDtoWithBookTest() {
+        Loan loan = createLoan();
+        BookDTO book = Mappers.getMapper(BookMapper.class).toDto(loan.getBook());
+
+        LoanDTO dto = mapper.toDto(loan, book);
+
+        assertThat(dto.getId()).isEqualTo(1l);
+        assertThat(dto.getIsbn()).isEqualTo("123");
+        assertThat(dto.getEmail()).isEqualTo("fulano@email.com");
+        assertThat(dto.getBook()).isSameAs(book);
+    }
+
+    private Loan createLoan() {
+        return Loan.builder()
+                .id(1l)
+                .book(Book.builder().id(1l).isbn("123").title("As aventuras").author("Artur").build())
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now())
+                .build();
+    }
+}
@@ -2,10 +2,16 @@ package com.paulo.libraryapi.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.BookImportErrorDTO;
+import com.paulo.libraryapi.api.dto.BookImportResultDTO;
+import com.paulo.libraryapi.api.dto.BookVersionDTO;
+import com.paulo.libraryapi.api.idempotency.IdempotencyFilter;
 import com.paulo.libraryapi.exception.BussinessException;
 import com.paulo.libraryapi.model.entity.Book;
 import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.service.BookImportService;
 import com.paulo.libraryapi.service.BookService;
+import com.paulo.libraryapi.service.ExportService;
 import com.paulo.libraryapi.service.LoanService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,20 +24,35 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.util.StreamUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -52,6 +73,12 @@ public class BookControllerTest {
     @MockBean
     LoanService loanService;
 
+    @MockBean
+    BookImportService importService;
+
+    @MockBean
+    ExportService exportService;
+
     @Test
     @DisplayName("Deve criar um livro com sucesso.")
     public void createBookTest() throws Exception {
@@ -82,6 +109,32 @@ public class BookControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Deve repetir a criacao do livro sem chamar o servico quando a Idempotency-Key se repetir.")
+    public void idempotentCreateBookTest() throws Exception {
+        BookDTO dto = createNewBook();
+        BDDMockito.given(service.save(any(Book.class)))
+                .willReturn(Book.builder().id(11l).author("Artur").title("As aventuras").isbn("001").build());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API)
+                .header(IdempotencyFilter.HEADER, "book-replay")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(dto));
+
+        String first = mvc.perform(request)
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        mvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(first));
+
+        verify(service, times(1)).save(any(Book.class));
+    }
+
 
     @Test
     @DisplayName("Deve lançar erro de validação quando nao houver dados suficiente para criação do livro.")
@@ -192,7 +245,7 @@ public class BookControllerTest {
         Book bookSaved = Book.builder().id(1l).title("Titulo").author("autor").build();
         BDDMockito.given(service.getById(id)).willReturn(Optional.of(bookSaved));
         Book updatedBook = Book.builder().id(id).author("Artur").title("As aventuras").isbn("001").build();
-        BDDMockito.given(service.update(bookSaved)).willReturn(updatedBook);
+        BDDMockito.given(service.update(argThat(book -> "As aventuras".equals(book.getTitle())))).willReturn(updatedBook);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(BOOK_API.concat("/"+ id))
@@ -203,10 +256,13 @@ public class BookControllerTest {
         mvc.perform(request)
                 .andExpect(status().isOk())
                 .andExpect( jsonPath("id").value(id))
-                .andExpect( jsonPath("title").value(bookSaved.getTitle()))
-                .andExpect( jsonPath("author").value(bookSaved.getAuthor()))
+                .andExpect( jsonPath("title").value(updatedBook.getTitle()))
+                .andExpect( jsonPath("author").value(updatedBook.getAuthor()))
                 .andExpect( jsonPath("isbn").value(updatedBook.getIsbn()));
 
+        assertThat(bookSaved.getTitle()).isEqualTo("Titulo");
+        assertThat(bookSaved.getAuthor()).isEqualTo("autor");
+
     }
 
     @Test
@@ -228,6 +284,142 @@ public class BookControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Deve retornar ETag e Last-Modified nos detalhes de um livro.")
+    public void getBookETagTest() throws Exception {
+        Instant updatedAt = Instant.parse("2020-05-01T10:15:30Z");
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001")
+                .version(3).updatedAt(updatedAt).build();
+        BDDMockito.given(service.getById(1l)).willReturn(Optional.of(book));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, updatedAt.toEpochMilli()))
+                .andExpect(jsonPath("title").value("As aventuras"));
+
+        verify(service, never()).getVersion(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar not modified sem carregar o livro quando o ETag nao mudou.")
+    public void getBookNotModifiedTest() throws Exception {
+        BDDMockito.given(service.getVersion(1l)).willReturn(Optional.of(
+                BookVersionDTO.builder().id(1l).version(3L).updatedAt(Instant.now()).build()));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(service, never()).getById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar o livro quando o ETag informado estiver desatualizado.")
+    public void getBookModifiedTest() throws Exception {
+        Book book = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").version(3).build();
+        BDDMockito.given(service.getVersion(1l)).willReturn(Optional.of(
+                BookVersionDTO.builder().id(1l).version(3L).updatedAt(Instant.now()).build()));
+        BDDMockito.given(service.getById(1l)).willReturn(Optional.of(book));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("title").value("As aventuras"));
+    }
+
+    @Test
+    @DisplayName("Deve recarregar o livro quando a copia em cache estiver numa versao anterior.")
+    public void getBookStaleCacheTest() throws Exception {
+        Instant updatedAt = Instant.parse("2020-05-01T10:15:30Z");
+        Book cached = Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").version(3).build();
+        Book fresh = Book.builder().id(1l).title("Novas aventuras").author("Artur").isbn("001")
+                .version(4).updatedAt(updatedAt).build();
+        BDDMockito.given(service.getVersion(1l)).willReturn(Optional.of(
+                BookVersionDTO.builder().id(1l).version(4L).updatedAt(updatedAt).build()));
+        BDDMockito.given(service.getById(1l)).willReturn(Optional.of(cached));
+        BDDMockito.given(service.reload(1l)).willReturn(Optional.of(fresh));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, updatedAt.toEpochMilli()))
+                .andExpect(jsonPath("title").value("Novas aventuras"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found numa requisicao condicional de um livro que nao existe.")
+    public void getBookConditionalNotFoundTest() throws Exception {
+        BDDMockito.given(service.getVersion(1l)).willReturn(Optional.empty());
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1"))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve atualizar um livro quando o If-Match corresponder a versao atual.")
+    public void updateBookIfMatchTest() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(createNewBook());
+        Book bookSaved = Book.builder().id(1l).title("Titulo").author("autor").isbn("001").version(3).build();
+        BDDMockito.given(service.getById(1l)).willReturn(Optional.of(bookSaved));
+        BDDMockito.given(service.update(any(Book.class))).willReturn(
+                Book.builder().id(1l).title("As aventuras").author("Artur").isbn("001").version(4).build());
+
+        mvc.perform(MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    @DisplayName("Deve retornar precondition failed ao atualizar um livro com If-Match desatualizado.")
+    public void updateBookStaleIfMatchTest() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(createNewBook());
+        Book bookSaved = Book.builder().id(1l).title("Titulo").author("autor").isbn("001").version(3).build();
+        BDDMockito.given(service.getById(1l)).willReturn(Optional.of(bookSaved));
+
+        mvc.perform(MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(service, never()).update(any(Book.class));
+        assertThat(bookSaved.getTitle()).isEqualTo("Titulo");
+    }
+
+    @Test
+    @DisplayName("Deve retornar precondition failed quando o livro mudar durante a atualizacao.")
+    public void updateBookConcurrentModificationTest() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(createNewBook());
+        Book bookSaved = Book.builder().id(1l).title("Titulo").author("autor").isbn("001").version(3).build();
+        BDDMockito.given(service.getById(1l)).willReturn(Optional.of(bookSaved));
+        BDDMockito.given(service.update(any(Book.class))).willThrow(new ObjectOptimisticLockingFailureException(Book.class, 1l));
+
+        mvc.perform(MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(bookSaved.getTitle()).isEqualTo("Titulo");
+        assertThat(bookSaved.getAuthor()).isEqualTo("autor");
+    }
+
     @Test
     @DisplayName("Deve filtrar livros")
     public void findBooksTest() throws Exception {
@@ -257,6 +449,166 @@ public class BookControllerTest {
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros pela disponibilidade.")
+    public void findAvailableBooksTest() throws Exception {
+        Book book = Book.builder()
+                    .id(1l)
+                    .title(createNewBook().getTitle())
+                    .author(createNewBook().getAuthor())
+                    .isbn(createNewBook().getIsbn())
+                    .available(true)
+                    .build();
+
+        BDDMockito.given( service.find(argThat(filter -> Boolean.TRUE.equals(filter.getAvailable())), any(Pageable.class)) )
+                .willReturn( new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0,20), 1) );
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?available=true"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].available").value(true));
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um arquivo NDJSON.")
+    public void importNdjsonTest() throws Exception {
+        BookImportResultDTO result = BookImportResultDTO.builder()
+                .total(2).imported(1).rejected(1)
+                .errors(Arrays.asList(BookImportErrorDTO.builder().line(2).isbn("123").message("Isbn já cadastrado.").build()))
+                .build();
+        BDDMockito.given( importService.importBooks(any(), eq(BookImportService.Format.NDJSON)) ).willReturn(result);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType("application/x-ndjson")
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Meu livro\",\"author\":\"Autor\",\"isbn\":\"001\"}\n" +
+                        "{\"title\":\"Outro\",\"author\":\"Autor\",\"isbn\":\"123\"}\n");
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("total").value(2))
+                .andExpect(jsonPath("imported").value(1))
+                .andExpect(jsonPath("rejected").value(1))
+                .andExpect(jsonPath("errors[0].line").value(2))
+                .andExpect(jsonPath("errors[0].message").value("Isbn já cadastrado."));
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um arquivo CSV.")
+    public void importCsvTest() throws Exception {
+        BDDMockito.given( importService.importBooks(any(), eq(BookImportService.Format.CSV)) )
+                .willReturn(BookImportResultDTO.builder().total(1).imported(1).build());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType("text/csv")
+                .accept(MediaType.APPLICATION_JSON)
+                .content("title,author,isbn\nMeu livro,Autor,001\n");
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(1))
+                .andExpect(jsonPath("errors", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("Deve exportar livros em NDJSON compactado com gzip.")
+    public void exportBooksGzipTest() throws Exception {
+        String ndjson = "{\"id\":1,\"title\":\"Meu livro\",\"author\":\"Autor\",\"isbn\":\"001\",\"available\":true}\n";
+        BDDMockito.given( exportService.exportBooks(any(), eq(ExportService.Format.NDJSON)) ).willAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(ndjson.getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?gzip=true")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books.ndjson\""))
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse();
+
+        try (InputStream body = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(StreamUtils.copyToString(body, StandardCharsets.UTF_8)).isEqualTo(ndjson);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar formato de exportação desconhecido.")
+    public void exportUnknownFormatTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=XML")))
+                .andExpect(status().isBadRequest());
+
+        verify(exportService, never()).exportBooks(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros por cursor.")
+    public void findBooksByCursorTest() throws Exception {
+        Book book = Book.builder()
+                    .id(7l)
+                    .title(createNewBook().getTitle())
+                    .author(createNewBook().getAuthor())
+                    .isbn(createNewBook().getIsbn())
+                    .build();
+
+        BDDMockito.given( service.findAfter(any(Book.class), eq(0l), eq(1)) )
+                .willReturn( new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0,1), true) );
+        BDDMockito.given( service.estimateCount() ).willReturn(10l);
+
+        String queryString = String.format("?title=%s&cursor=&size=1&estimate=true", book.getTitle());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat(queryString))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(7))
+                .andExpect(jsonPath("size").value(1))
+                .andExpect(jsonPath("nextCursor").value(Cursors.encode(7l)))
+                .andExpect(jsonPath("countEstimate").value(10));
+
+        verify(service, never()).find(any(Book.class), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve continuar a busca de livros a partir do cursor informado.")
+    public void findBooksByNextCursorTest() throws Exception {
+        BDDMockito.given( service.findAfter(any(Book.class), eq(7l), eq(20)) )
+                .willReturn( new SliceImpl<Book>(Arrays.asList(), PageRequest.of(0,20), false) );
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?cursor=" + Cursors.encode(7l)))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(0)))
+                .andExpect(jsonPath("nextCursor").doesNotExist())
+                .andExpect(jsonPath("countEstimate").doesNotExist());
+
+        verify(service, never()).estimateCount();
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro de requisicao ao informar um cursor invalido.")
+    public void findBooksByInvalidCursorTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?cursor=invalido"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).findAfter(any(Book.class), any(), anyInt());
+    }
+
     @Test
     @DisplayName("Deve retornar uma lista de emprestimos de um livro por id.")
     public void getPageLoansByBookIdTest() throws Exception {
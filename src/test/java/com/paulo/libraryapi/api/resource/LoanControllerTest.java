@@ -4,11 +4,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paulo.libraryapi.api.dto.LoanDTO;
 import com.paulo.libraryapi.api.dto.LoanFilterDTO;
+import com.paulo.libraryapi.api.dto.LoanOutcomeDTO;
 import com.paulo.libraryapi.api.dto.ReturnedLoanDTO;
+import com.paulo.libraryapi.api.idempotency.IdempotencyFilter;
 import com.paulo.libraryapi.exception.BussinessException;
 import com.paulo.libraryapi.model.entity.Book;
 import com.paulo.libraryapi.model.entity.Loan;
 import com.paulo.libraryapi.service.BookService;
+import com.paulo.libraryapi.service.ExportService;
 import com.paulo.libraryapi.service.LoanService;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -24,6 +27,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -33,8 +38,11 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import javax.xml.crypto.Data;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.*;
@@ -55,6 +63,8 @@ public class LoanControllerTest {
     BookService bookService;
     @MockBean
     LoanService loanService;
+    @MockBean
+    ExportService exportService;
 
     @Test
     @DisplayName("Deve realizar um emprestimo")
@@ -124,6 +134,58 @@ public class LoanControllerTest {
                 .andExpect(jsonPath("errors[0]").value("Book already loaned."));
     }
 
+    @Test
+    @DisplayName("Deve repetir a resposta original ao receber novamente a mesma Idempotency-Key.")
+    public void idempotentCreateLoanTest() throws Exception {
+        LoanDTO dto = LoanDTO.builder().isbn("123").customer("Fulano").email("teste@email.coms").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        Book book = Book.builder().id(1l).author("Artur").title("As aventuras").isbn("123").build();
+        BDDMockito.given(bookService.getBookByIsbn(dto.getIsbn())).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.save(Mockito.any(Loan.class)))
+                .willReturn(Loan.builder().id(7l).build())
+                .willThrow(new BussinessException("Book already loaned."));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(LOAN_API)
+                .header(IdempotencyFilter.HEADER, "loan-replay")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+        mvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(content().string("7"))
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        mvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(content().string("7"))
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+
+        Mockito.verify(loanService, Mockito.times(1)).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar uma Idempotency-Key reutilizada com outro pedido.")
+    public void idempotencyKeyReusedTest() throws Exception {
+        Book book = Book.builder().id(1l).author("Artur").title("As aventuras").isbn("123").build();
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willReturn(Loan.builder().id(8l).build());
+
+        for (String customer : Arrays.asList("Fulano", "Ciclano")) {
+            String json = new ObjectMapper().writeValueAsString(
+                    LoanDTO.builder().isbn("123").customer(customer).email("teste@email.coms").build());
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                    .post(LOAN_API)
+                    .header(IdempotencyFilter.HEADER, "loan-reused")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(json);
+            mvc.perform(request).andExpect(status().is(customer.equals("Fulano") ? 201 : 422));
+        }
+
+        Mockito.verify(loanService, Mockito.times(1)).save(Mockito.any(Loan.class));
+    }
+
     @Test
     @DisplayName("Deve retornar um livro")
     public void returnBookTest() throws Exception {
@@ -185,6 +247,74 @@ public class LoanControllerTest {
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve filtrar emprestimos por cursor.")
+    public void findLoansByCursorTest() throws Exception {
+        Loan loan = createLoan();
+        loan.setId(3l);
+        BDDMockito.given( loanService.findAfter(Mockito.any(LoanFilterDTO.class), Mockito.eq(0l), Mockito.eq(20)) )
+                .willReturn( new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0,20), false) );
+
+        String queryString = String.format("?isbn=%s&customer=%s&cursor=", loan.getBook().getIsbn(), loan.getCustomer());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat(queryString))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(3))
+                .andExpect(jsonPath("size").value(1))
+                .andExpect(jsonPath("nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve realizar emprestimos em lote.")
+    public void bulkCreateLoanTest() throws Exception {
+        List<LoanDTO> dtos = Arrays.asList(
+                LoanDTO.builder().isbn("123").customer("Fulano").email("fulano@email.com").build(),
+                LoanDTO.builder().isbn("456").customer("Fulano").email("fulano@email.com").build());
+        BDDMockito.given(loanService.checkout(Mockito.anyList())).willReturn(Arrays.asList(
+                LoanOutcomeDTO.builder().id(1l).isbn("123").status(LoanOutcomeDTO.Status.CREATED).build(),
+                LoanOutcomeDTO.builder().isbn("456").status(LoanOutcomeDTO.Status.BOOK_ALREADY_LOANED).message("Book already loaned.").build()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(LOAN_API.concat("/bulk"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(dtos));
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("[0].id").value(1))
+                .andExpect(jsonPath("[0].status").value("CREATED"))
+                .andExpect(jsonPath("[1].status").value("BOOK_ALREADY_LOANED"))
+                .andExpect(jsonPath("[1].message").value("Book already loaned."));
+    }
+
+    @Test
+    @DisplayName("Deve devolver emprestimos em lote.")
+    public void bulkReturnLoanTest() throws Exception {
+        BDDMockito.given(loanService.returnLoans(Arrays.asList(1l, 2l))).willReturn(Arrays.asList(
+                LoanOutcomeDTO.builder().id(1l).status(LoanOutcomeDTO.Status.RETURNED).build(),
+                LoanOutcomeDTO.builder().id(2l).status(LoanOutcomeDTO.Status.NOT_FOUND).message("Loan not found.").build()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .patch(LOAN_API.concat("/bulk"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]");
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("[0].status").value("RETURNED"))
+                .andExpect(jsonPath("[1].status").value("NOT_FOUND"));
+
+        Mockito.verify(loanService, Mockito.never()).update(Mockito.any(Loan.class));
+    }
+
     private Loan createLoan() {
         return Loan.builder()
                 .book(
@@ -194,4 +324,21 @@ public class LoanControllerTest {
                 .customer("Fulano")
                 .build();
     }
+
+    @Test
+    @DisplayName("Deve exportar empréstimos em CSV.")
+    public void exportLoansCsvTest() throws Exception {
+        String csv = "id,isbn,customer,email\n1,123,Fulano,fulano@email.com\n";
+        BDDMockito.given(exportService.exportLoans(Mockito.any(), Mockito.eq(ExportService.Format.CSV))).willAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write(csv.getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("/export?format=CSV")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"loans.csv\""))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string(csv));
+    }
 }
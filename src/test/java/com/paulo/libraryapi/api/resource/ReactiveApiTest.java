@@ -0,0 +1,287 @@
+package com.paulo.libraryapi.api.resource;
+
+import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.api.idempotency.IdempotencyFilter;
+import com.paulo.libraryapi.config.ReactiveConfig;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.service.LoanArchiveService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles({"test", ReactiveConfig.PROFILE})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactive-api;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+public class ReactiveApiTest {
+
+    static String BOOK_API = "/api/books";
+    static String LOAN_API = "/api/loans";
+
+    @Autowired
+    WebTestClient client;
+
+    @MockBean
+    LoanArchiveService archiveService;
+
+    @Test
+    @DisplayName("Deve criar e consultar livros pela API reativa.")
+    public void createAndFindBooksTest() {
+        BookDTO created = createBook("R-001");
+
+        client.get().uri(BOOK_API + "/" + created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("id").isEqualTo(created.getId().intValue())
+                .jsonPath("isbn").isEqualTo("R-001")
+                .jsonPath("available").isEqualTo(true);
+
+        client.get().uri(BOOK_API + "?isbn=R-001&page=0&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content.length()").isEqualTo(1)
+                .jsonPath("totalElements").isEqualTo(1);
+
+        client.get().uri(BOOK_API + "/999999")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve responder a pedidos condicionais com ETag e If-Match pela API reativa.")
+    public void conditionalRequestsTest() {
+        BookDTO created = createBook("E-001");
+        String eTag = client.get().uri(BOOK_API + "/" + created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .returnResult(BookDTO.class)
+                .getResponseHeaders()
+                .getETag();
+        assertThat(eTag).isNotNull();
+
+        client.get().uri(BOOK_API + "/" + created.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        BookDTO update = BookDTO.builder().title("Novo titulo").author("Novo autor").isbn("E-001").build();
+        client.put().uri(BOOK_API + "/" + created.getId())
+                .header(HttpHeaders.IF_MATCH, "\"999\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        String updatedETag = client.put().uri(BOOK_API + "/" + created.getId())
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("title").isEqualTo("Novo titulo")
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        assertThat(updatedETag).isNotNull().isNotEqualTo(eTag);
+
+        client.get().uri(BOOK_API + "/" + created.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, updatedETag)
+                .expectBody()
+                .jsonPath("title").isEqualTo("Novo titulo");
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro de validação ao criar livro inválido pela API reativa.")
+    public void createInvalidBookTest() {
+        client.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookDTO())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors.length()").isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve paginar livros por cursor e por stream pela API reativa.")
+    public void cursorAndStreamTest() {
+        createBook("S-001");
+        createBook("S-002");
+        createBook("S-003");
+
+        client.get().uri(BOOK_API + "?cursor=&size=2&author=Stream")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("size").isEqualTo(2)
+                .jsonPath("nextCursor").isNotEmpty();
+
+        List<BookDTO> streamed = client.get().uri(BOOK_API + "?author=Stream")
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BookDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(streamed).extracting(BookDTO::getIsbn).containsExactly("S-001", "S-002", "S-003");
+    }
+
+    @Test
+    @DisplayName("Deve emprestar e listar empréstimos pela API reativa.")
+    public void loanTest() {
+        BookDTO book = createBook("L-001");
+        LoanDTO loan = LoanDTO.builder().isbn("L-001").customer("Fulano").email("fulano@email.com").build();
+
+        client.post().uri(LOAN_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loan)
+                .exchange()
+                .expectStatus().isCreated();
+
+        client.get().uri(BOOK_API + "/" + book.getId())
+                .exchange()
+                .expectBody()
+                .jsonPath("available").isEqualTo(false);
+
+        client.get().uri(LOAN_API + "?isbn=L-001&page=0&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content.length()").isEqualTo(1)
+                .jsonPath("content[0].customer").isEqualTo("Fulano");
+
+        client.get().uri(BOOK_API + "/" + book.getId() + "/loans?cursor=&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("size").isEqualTo(1)
+                .jsonPath("content[0].book.isbn").isEqualTo("L-001");
+    }
+
+    @Test
+    @DisplayName("Deve incluir os empréstimos arquivados nas listagens da API reativa.")
+    public void archivedLoansTest() {
+        BookDTO book = createBook("A-001");
+        Loan archived = Loan.builder()
+                .id(1L)
+                .book(Book.builder().id(book.getId()).isbn("A-001").build())
+                .customer("Arquivado")
+                .loanDate(LocalDate.now().minusYears(1))
+                .returned(true)
+                .build();
+        Mockito.when(archiveService.countByIsbnOrCustomer("A-001", null)).thenReturn(1L);
+        Mockito.when(archiveService.findByIsbnOrCustomer("A-001", null, 0L, 0L, 10))
+                .thenReturn(Collections.singletonList(archived));
+        Mockito.when(archiveService.findByIsbnOrCustomer("A-001", null, 0L, 0L, 11))
+                .thenReturn(Collections.singletonList(archived));
+        Mockito.when(archiveService.findByBook(book.getId(), 0L, 0L, 11))
+                .thenReturn(Collections.singletonList(archived));
+
+        client.get().uri(LOAN_API + "?isbn=A-001&page=0&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("totalElements").isEqualTo(1)
+                .jsonPath("content[0].customer").isEqualTo("Arquivado")
+                .jsonPath("content[0].book.title").isEqualTo("Titulo A-001");
+
+        client.get().uri(LOAN_API + "?isbn=A-001&cursor=&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("size").isEqualTo(1)
+                .jsonPath("content[0].customer").isEqualTo("Arquivado");
+
+        client.get().uri(BOOK_API + "/" + book.getId() + "/loans?cursor=&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("size").isEqualTo(1)
+                .jsonPath("content[0].book.isbn").isEqualTo("A-001");
+    }
+
+    @Test
+    @DisplayName("Deve repetir a resposta original ao receber novamente a mesma Idempotency-Key pela API reativa.")
+    public void idempotentCreateTest() {
+        BookDTO dto = BookDTO.builder().title("Titulo I-001").author("Autor").isbn("I-001").build();
+        BookDTO created = client.post().uri(BOOK_API)
+                .header(IdempotencyFilter.HEADER, "reactive-replay")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(dto)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().doesNotExist(IdempotencyFilter.REPLAYED_HEADER)
+                .expectBody(BookDTO.class)
+                .returnResult()
+                .getResponseBody();
+
+        BookDTO replayed = client.post().uri(BOOK_API)
+                .header(IdempotencyFilter.HEADER, "reactive-replay")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(dto)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals(IdempotencyFilter.REPLAYED_HEADER, "true")
+                .expectBody(BookDTO.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(replayed).isEqualToComparingFieldByField(created);
+
+        client.post().uri(BOOK_API)
+                .header(IdempotencyFilter.HEADER, "reactive-replay")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(BookDTO.builder().title("Outro").author("Autor").isbn("I-002").build())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("Idempotency-Key was already used with a different request.");
+
+        client.get().uri(BOOK_API + "?isbn=I-001&page=0&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("totalElements").isEqualTo(1);
+    }
+
+    private BookDTO createBook(String isbn) {
+        BookDTO dto = BookDTO.builder().title("Titulo " + isbn).author(isbn.startsWith("S") ? "Stream" : "Autor").isbn(isbn).build();
+        return client.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(dto)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(BookDTO.class)
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,115 @@
+package com.paulo.libraryapi.api.resource;
+
+import com.paulo.libraryapi.api.dto.CustomerLoansDTO;
+import com.paulo.libraryapi.api.dto.DailyLoansDTO;
+import com.paulo.libraryapi.api.dto.TopBookDTO;
+import com.paulo.libraryapi.service.ReportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WebMvcTest(controllers = ReportController.class)
+public class ReportControllerTest {
+
+    static final String REPORT_API = "/api/reports";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ReportService service;
+
+    @Test
+    @DisplayName("Deve retornar os emprestimos por dia dos ultimos 30 dias por padrao")
+    public void dailyLoansDefaultPeriodTest() throws Exception {
+        LocalDate today = LocalDate.now();
+        BDDMockito.given(service.dailyLoans(today.minusDays(29), today))
+                .willReturn(Arrays.asList(
+                        DailyLoansDTO.builder().date(today.minusDays(1)).loans(3L).openLoans(1L).build(),
+                        DailyLoansDTO.builder().date(today).loans(2L).openLoans(2L).build()));
+
+        mvc.perform(MockMvcRequestBuilders.get(REPORT_API + "/loans/daily").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].date").value(today.toString()))
+                .andExpect(jsonPath("$[1].openLoans").value(2));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar um periodo maior que o permitido")
+    public void dailyLoansPeriodTooLongTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(REPORT_API + "/loans/daily")
+                .param("from", "2020-01-01")
+                .param("to", "2021-06-01")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", hasSize(1)));
+
+        Mockito.verify(service, Mockito.never()).dailyLoans(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve retornar os livros mais emprestados")
+    public void topBooksTest() throws Exception {
+        BDDMockito.given(service.topBooks(5)).willReturn(Collections.singletonList(
+                TopBookDTO.builder().id(1L).title("As aventuras").author("Artur").isbn("123").loans(7L).build()));
+
+        mvc.perform(MockMvcRequestBuilders.get(REPORT_API + "/books/top").param("limit", "5").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].isbn").value("123"))
+                .andExpect(jsonPath("$[0].loans").value(7));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar um limite invalido")
+    public void invalidLimitTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(REPORT_API + "/customers/top").param("limit", "1000").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", hasSize(1)));
+
+        Mockito.verify(service, Mockito.never()).topCustomers(Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found para um cliente sem emprestimos")
+    public void customerNotFoundTest() throws Exception {
+        BDDMockito.given(service.customer("Fulano")).willReturn(Optional.empty());
+
+        mvc.perform(MockMvcRequestBuilders.get(REPORT_API + "/customers/Fulano").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve retornar os totais de um cliente")
+    public void customerTest() throws Exception {
+        BDDMockito.given(service.customer("Fulano"))
+                .willReturn(Optional.of(CustomerLoansDTO.builder().customer("Fulano").loans(4L).openLoans(1L).build()));
+
+        mvc.perform(MockMvcRequestBuilders.get(REPORT_API + "/customers/Fulano").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("loans").value(4))
+                .andExpect(jsonPath("openLoans").value(1));
+    }
+}
@@ -0,0 +1,73 @@
+package com.paulo.libraryapi.config;
+
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.service.BookService;
+import com.paulo.libraryapi.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({SimpleMeterRegistry.class, MetricsConfig.class, MethodTimingAspect.class, CacheConfig.class, BookServiceImpl.class})
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+public class MetricsConfigTest {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    FilterRegistrationBean<OncePerRequestFilter> statementCountFilter;
+
+    @Test
+    @DisplayName("Deve registrar a latencia por metodo dos servicos e repositorios.")
+    public void timeServiceAndRepositoryMethodsTest() {
+        Book book = service.save(Book.builder().title("As aventuras").author("Artur").isbn("123").build());
+        service.getBookByIsbn(book.getIsbn());
+        service.getBookByIsbn(book.getIsbn());
+
+        Timer serviceTimer = meterRegistry.get(MethodTimingAspect.SERVICE_TIMER)
+                .tag("class", "BookServiceImpl").tag("method", "getBookByIsbn").timer();
+        Timer saveTimer = meterRegistry.get(MethodTimingAspect.REPOSITORY_TIMER)
+                .tag("class", "BookRepository").tag("method", "saveAndFlush").timer();
+
+        assertThat(serviceTimer.count()).isEqualTo(2);
+        assertThat(saveTimer.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve registrar a quantidade de comandos SQL por requisicao.")
+    public void countStatementsPerRequestTest() throws Exception {
+        statementCountFilter.getFilter().doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                (request, response) -> {
+                    repository.count();
+                    repository.existsByIsbn("123");
+                });
+
+        assertThat(meterRegistry.get(MetricsConfig.STATEMENTS_PER_REQUEST).summary().totalAmount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,66 @@
+package com.paulo.libraryapi.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ThreadingConfigTest {
+
+    @Test
+    @DisplayName("Deve usar threads de plataforma por padrão.")
+    public void platformThreadsByDefaultTest() throws Exception {
+        ThreadingConfig config = new ThreadingConfig(false);
+
+        Thread thread = config.mailOutboxThreadFactory().newThread(() -> { });
+
+        assertThat(thread.getName()).startsWith("mail-outbox-");
+        assertThat(isVirtual(thread)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve executar o envio de emails e os jobs agendados em threads virtuais.")
+    public void virtualThreadsTest() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        ThreadingConfig config = new ThreadingConfig(true);
+
+        ThreadFactory mailFactory = config.mailOutboxThreadFactory();
+        assertThat(isVirtual(mailFactory.newThread(() -> { }))).isTrue();
+
+        ThreadPoolTaskScheduler scheduler = (ThreadPoolTaskScheduler) config.taskScheduler(1);
+        scheduler.initialize();
+        try {
+            CompletableFuture<Thread> ran = new CompletableFuture<>();
+            scheduler.execute(() -> ran.complete(Thread.currentThread()));
+            Thread thread = ran.get(5, TimeUnit.SECONDS);
+            assertThat(thread.getName()).startsWith("scheduling-");
+            assertThat(isVirtual(thread)).isTrue();
+        } finally {
+            scheduler.shutdown();
+        }
+
+        CompletableFuture<Thread> async = new CompletableFuture<>();
+        config.applicationTaskExecutor().execute(() -> async.complete(Thread.currentThread()));
+        assertThat(isVirtual(async.get(5, TimeUnit.SECONDS))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve falhar ao habilitar threads virtuais em JDK sem suporte.")
+    public void unsupportedVirtualThreadsTest() {
+        assumeFalse(VirtualThreads.isSupported());
+
+        assertThatThrownBy(() -> new ThreadingConfig(true)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        return VirtualThreads.isSupported() && (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+}
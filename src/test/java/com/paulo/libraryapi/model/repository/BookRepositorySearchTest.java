@@ -0,0 +1,166 @@
+package com.paulo.libraryapi.model.repository;
+
+import com.paulo.libraryapi.exception.BussinessException;
+import com.paulo.libraryapi.model.entity.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookRepositorySearchTest {
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        repository.deleteAll();
+        repository.rebuildIndex();
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros por palavras do titulo ignorando caixa e acentos.")
+    public void searchByTitleTest() {
+        Book book = saveBook("As Aventuras de Sherlock", "Arthur Conan Doyle", "123");
+        saveBook("O Cortiço", "Aluísio Azevedo", "456");
+
+        Page<Book> result = repository.search(Book.builder().title("AVENTURAS").build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting(Book::getId).containsExactly(book.getId());
+        assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros por prefixo e com erros de digitacao.")
+    public void searchByPrefixAndFuzzyTest() {
+        Book book = saveBook("O Cortiço", "Aluísio Azevedo", "456");
+
+        Page<Book> byPrefix = repository.search(Book.builder().author("alui").build(), PageRequest.of(0, 10));
+        Page<Book> byFuzzy = repository.search(Book.builder().title("cortiso").build(), PageRequest.of(0, 10));
+
+        assertThat(byPrefix.getContent()).extracting(Book::getId).containsExactly(book.getId());
+        assertThat(byFuzzy.getContent()).extracting(Book::getId).containsExactly(book.getId());
+    }
+
+    @Test
+    @DisplayName("Deve combinar os filtros e buscar isbn por trecho.")
+    public void searchByAllFiltersTest() {
+        Book book = saveBook("Dom Casmurro", "Machado de Assis", "978-85");
+        saveBook("Dom Quixote", "Miguel de Cervantes", "978-84");
+
+        Page<Book> result = repository.search(Book.builder().title("dom").author("machado").isbn("85").build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting(Book::getId).containsExactly(book.getId());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar a busca pela disponibilidade do livro.")
+    public void searchByAvailabilityTest() {
+        Book available = saveBook("Dom Casmurro", "Machado de Assis", "1");
+        Book loaned = repository.saveAndFlush(Book.builder()
+                .title("Dom Quixote").author("Cervantes").isbn("2").available(false).build());
+
+        Page<Book> onlyAvailable = repository.search(Book.builder().title("dom").available(true).build(), PageRequest.of(0, 10));
+        Page<Book> onlyLoaned = repository.search(Book.builder().title("dom").available(false).build(), PageRequest.of(0, 10));
+
+        assertThat(onlyAvailable.getContent()).extracting(Book::getId).containsExactly(available.getId());
+        assertThat(onlyLoaned.getContent()).extracting(Book::getId).containsExactly(loaned.getId());
+    }
+
+    @Test
+    @DisplayName("Deve ordenar os livros pela relevancia da busca.")
+    public void searchRankedByRelevanceTest() {
+        Book prefix = saveBook("Memórias Póstumas", "Machado de Assis", "1");
+        Book exact = saveBook("Memória", "Machado de Assis", "2");
+
+        Page<Book> result = repository.search(Book.builder().title("memoria").build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting(Book::getId).containsExactly(exact.getId(), prefix.getId());
+    }
+
+    @Test
+    @DisplayName("Deve paginar e ordenar os livros pelo campo informado.")
+    public void searchPagedAndSortedTest() {
+        saveBook("Dom Casmurro", "Machado de Assis", "1");
+        saveBook("Dom Quixote", "Cervantes", "2");
+        Book second = saveBook("Dom Pedro", "Autor", "3");
+
+        Page<Book> result = repository.search(Book.builder().title("dom").build(),
+                PageRequest.of(1, 1, Sort.by("title").descending()));
+
+        assertThat(result.getContent()).extracting(Book::getId).containsExactly(second.getId());
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar ordenacao por campo nao indexado.")
+    public void searchSortedByUnknownFieldTest() {
+        Throwable exception = catchThrowable(() -> repository.search(Book.builder().title("dom").build(),
+                PageRequest.of(0, 10, Sort.by("loans"))));
+
+        assertThat(exception).isInstanceOf(BussinessException.class);
+    }
+
+    @Test
+    @DisplayName("Deve remover do indice os livros deletados.")
+    public void searchAfterDeleteTest() {
+        Book book = saveBook("Dom Casmurro", "Machado de Assis", "1");
+
+        repository.delete(book);
+
+        assertThat(repository.search(Book.builder().title("casmurro").build(), PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve reconstruir o indice com livros inseridos fora do hibernate.")
+    public void rebuildIndexTest() throws Exception {
+        jdbcTemplate.update("insert into book (id, title, author, isbn) values (1000000, 'Iracema', 'José de Alencar', '789')");
+        Book filter = Book.builder().title("iracema").build();
+        assertThat(repository.search(filter, PageRequest.of(0, 10))).isEmpty();
+
+        long indexed = repository.rebuildIndex();
+
+        assertThat(indexed).isEqualTo(1);
+        assertThat(repository.search(filter, PageRequest.of(0, 10)).getContent())
+                .extracting(Book::getIsbn).containsExactly("789");
+    }
+
+    @Test
+    @DisplayName("Deve contar os livros do indice para comparar com o banco na inicializacao.")
+    public void countIndexedTest() throws Exception {
+        saveBook("Dom Casmurro", "Machado de Assis", "321");
+        jdbcTemplate.update("insert into book (id, title, author, isbn) values (1000001, 'Iracema', 'José de Alencar', '789')");
+
+        assertThat(repository.countIndexed()).isEqualTo(1);
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(repository.indexedAt()).isEmpty();
+
+        repository.rebuildIndex();
+
+        assertThat(repository.countIndexed()).isEqualTo(2);
+    }
+
+    private Book saveBook(String title, String author, String isbn) {
+        return repository.saveAndFlush(Book.builder().title(title).author(author).isbn(isbn).build());
+    }
+}
@@ -1,18 +1,26 @@
 package com.paulo.libraryapi.model.repository;
 
+import com.paulo.libraryapi.api.dto.BookVersionDTO;
 import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -71,6 +79,147 @@ public class BookRepositoryTest {
         assertThat(book.getId()).isNotNull();
     }
 
+    @Test
+    @DisplayName("Deve rejeitar um livro com isbn duplicado.")
+    public void rejectDuplicatedIsbnTest() {
+        entityManager.persist(createNewBook());
+
+        Throwable exception = catchThrowable(() -> repository.saveAndFlush(createNewBook()));
+
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Deve obter um livro pelo isbn.")
+    public void findByIsbnTest() {
+        Book book = createNewBook();
+        entityManager.persist(book);
+
+        Optional<Book> foundBook = repository.findByIsbn("123");
+
+        assertThat(foundBook).contains(book);
+    }
+
+    @Test
+    @DisplayName("Deve obter livros a partir do ultimo id informado em ordem de id.")
+    public void findAfterTest() {
+        Book first = persistBook("1", "Artur");
+        Book second = persistBook("2", "Fulano");
+        Book third = persistBook("3", "Artur");
+
+        Slice<Book> firstSlice = repository.findAfter(0L, null, null, null, null, PageRequest.of(0, 2));
+        Slice<Book> lastSlice = repository.findAfter(second.getId(), null, null, null, null, PageRequest.of(0, 2));
+
+        assertThat(firstSlice.getContent()).containsExactly(first, second);
+        assertThat(firstSlice.hasNext()).isTrue();
+        assertThat(lastSlice.getContent()).containsExactly(third);
+        assertThat(lastSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros obtidos a partir do ultimo id informado.")
+    public void findAfterWithFilterTest() {
+        Book first = persistBook("1", "Artur");
+        persistBook("2", "Fulano");
+        Book third = persistBook("3", "Artur");
+
+        Slice<Book> result = repository.findAfter(0L, null, "art", null, null, PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactly(first, third);
+        assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros obtidos a partir do ultimo id pela disponibilidade.")
+    public void findAfterByAvailabilityTest() {
+        Book available = persistBook("1", "Artur");
+        Book loaned = createNewBook();
+        loaned.setIsbn("2");
+        loaned.setAvailable(false);
+        entityManager.persist(loaned);
+
+        Slice<Book> result = repository.findAfter(0L, null, null, null, false, PageRequest.of(0, 10));
+
+        assertThat(available.getAvailable()).isTrue();
+        assertThat(result.getContent()).containsExactly(loaned);
+    }
+
+    @Test
+    @DisplayName("Deve encontrar e corrigir a disponibilidade divergente dos emprestimos abertos.")
+    public void refreshAvailabilityTest() {
+        Book loaned = persistBook("1", "Artur");
+        Book returned = createNewBook();
+        returned.setIsbn("2");
+        returned.setAvailable(false);
+        entityManager.persist(returned);
+        Loan loan = entityManager.persist(Loan.builder().book(loaned).customer("Fulano")
+                .customerEmail("fulano@email.com").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+
+        assertThat(repository.findAvailabilityDrift(0L, PageRequest.of(0, 10)))
+                .containsExactly(loaned.getId(), returned.getId());
+
+        repository.refreshAvailability(Arrays.asList(loaned.getId(), returned.getId()));
+
+        assertThat(repository.findAvailabilityDrift(0L, PageRequest.of(0, 10))).isEmpty();
+        assertThat(repository.findById(loaned.getId())).hasValueSatisfying(book -> {
+            assertThat(book.getAvailable()).isFalse();
+            assertThat(book.getCurrentLoanId()).isEqualTo(loan.getId());
+        });
+        assertThat(repository.findById(returned.getId()).map(Book::getAvailable)).contains(true);
+    }
+
+    @Test
+    @DisplayName("Deve incrementar a versao do livro ao atualizar e ao corrigir a disponibilidade.")
+    public void versionTest() {
+        Book book = persistBook("1", "Artur");
+        entityManager.flush();
+        assertThat(book.getVersion()).isEqualTo(0L);
+        assertThat(book.getUpdatedAt()).isNotNull();
+
+        book.setTitle("Outro titulo");
+        entityManager.flush();
+        assertThat(repository.findVersionById(book.getId()).map(BookVersionDTO::getVersion)).contains(1L);
+
+        entityManager.persist(Loan.builder().book(book).customer("Fulano")
+                .customerEmail("fulano@email.com").loanDate(LocalDate.now()).build());
+        repository.refreshAvailability(Arrays.asList(book.getId()));
+
+        assertThat(repository.findVersionById(book.getId())).hasValueSatisfying(version -> {
+            assertThat(version.getId()).isEqualTo(book.getId());
+            assertThat(version.getVersion()).isEqualTo(2L);
+            assertThat(version.getUpdatedAt()).isNotNull();
+        });
+        assertThat(repository.findVersionById(book.getId() + 1)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve obter os livros alterados a partir de um instante.")
+    public void findUpdatedSinceTest() {
+        Book old = persistBook("1", "Artur");
+        Book recent = persistBook("2", "Artur");
+        entityManager.flush();
+        old.setUpdatedAt(recent.getUpdatedAt().minusSeconds(120));
+        entityManager.getEntityManager()
+                .createQuery("update Book b set b.updatedAt = :updatedAt where b.id = :id")
+                .setParameter("updatedAt", old.getUpdatedAt())
+                .setParameter("id", old.getId())
+                .executeUpdate();
+
+        assertThat(repository.findUpdatedSince(recent.getUpdatedAt().minusSeconds(60)))
+                .extracting(Book::getId)
+                .containsExactly(recent.getId());
+    }
+
+    @Test
+    @DisplayName("Deve obter uma estimativa da quantidade de livros sem contar a tabela.")
+    public void estimateCountTest() {
+        persistBook("1", "Artur");
+        entityManager.flush();
+
+        assertThat(repository.estimateCount()).isNotNull().isGreaterThanOrEqualTo(0L);
+    }
+
     @Test
     @DisplayName("Deve deletar um livro")
     public void deleteBookTest() {
@@ -87,4 +236,11 @@ public class BookRepositoryTest {
 
     }
 
+    private Book persistBook(String isbn, String author) {
+        Book book = createNewBook();
+        book.setIsbn(isbn);
+        book.setAuthor(author);
+        return entityManager.persist(book);
+    }
+
 }
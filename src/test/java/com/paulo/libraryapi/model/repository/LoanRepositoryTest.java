@@ -2,6 +2,8 @@ package com.paulo.libraryapi.model.repository;
 
 import com.paulo.libraryapi.model.entity.Book;
 import com.paulo.libraryapi.model.entity.Loan;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,18 +12,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class LoanRepositoryTest {
 
     @Autowired
@@ -30,18 +39,81 @@ public class LoanRepositoryTest {
     @Autowired
     EntityManager entityManager;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     @Test
     @DisplayName("Deve verificar se existe um emprestimo para livro nao devolvido.")
-    public void existByBookAndNotReturnedTest() {
+    public void findOpenBookIdsTest() {
+
+        Loan loan = createAndPersistLoan();
+
+        List<Long> open = repository.findOpenBookIds(Collections.singleton(loan.getBook().getId()));
+
+        assertThat(open).containsExactly(loan.getBook().getId());
+
+    }
+
+    @Test
+    @DisplayName("Deve nao considerar emprestimos ja devolvidos como emprestimo em aberto.")
+    public void notFindOpenBookIdsWhenReturnedTest() {
 
         Loan loan = createAndPersistLoan();
+        loan.setReturned(true);
+        entityManager.persist(loan);
+        entityManager.flush();
 
-        Boolean exists = repository.existsByBookAndNotReturned(loan.getBook());
+        List<Long> open = repository.findOpenBookIds(Collections.singleton(loan.getBook().getId()));
 
-        assertThat(exists).isTrue();
+        assertThat(open).isEmpty();
 
     }
 
+    @Test
+    @DisplayName("Deve salvar emprestimo sem informacao de devolucao como nao devolvido.")
+    public void normalizeNullReturnedTest() {
+
+        Loan loan = createAndPersistLoan();
+        loan.setReturned(null);
+        entityManager.flush();
+
+        assertThat(loan.getReturned()).isFalse();
+        assertThat(repository.findOpenBookIds(Collections.singleton(loan.getBook().getId()))).containsExactly(loan.getBook().getId());
+
+    }
+
+    @Test
+    @DisplayName("Deve impedir dois emprestimos abertos para o mesmo livro no banco.")
+    public void rejectSecondOpenLoanTest() {
+        Loan loan = createAndPersistLoan();
+        entityManager.flush();
+
+        Loan second = Loan.builder().book(loan.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build();
+        Throwable exception = catchThrowable(() -> {
+            entityManager.persist(second);
+            entityManager.flush();
+        });
+
+        assertThat(exception).isInstanceOf(PersistenceException.class);
+    }
+
+    @Test
+    @DisplayName("Deve permitir novo emprestimo do livro apos a devolucao.")
+    public void allowNewLoanAfterReturnTest() {
+        Loan loan = createAndPersistLoan();
+        entityManager.flush();
+
+        repository.markReturned(Collections.singletonList(loan.getId()));
+        Loan second = Loan.builder().book(loan.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build();
+        entityManager.persist(second);
+        entityManager.flush();
+
+        assertThat(repository.findById(loan.getId())).hasValueSatisfying(returned -> {
+            assertThat(returned.getReturned()).isTrue();
+            assertThat(returned.getOpenBookId()).isNull();
+        });
+        assertThat(second.getOpenBookId()).isEqualTo(loan.getBook().getId());
+    }
 
     @Test
     @DisplayName("Deve buscas emprestimo pelo isbn do livro ou customer.")
@@ -59,28 +131,155 @@ public class LoanRepositoryTest {
     }
 
     @Test
-    @DisplayName("Deve obter emprestimos cuja data de emprestimo for menor ou igual a tres dias.")
-    public void  findByLoanDateLessThanAndNotReturnedTest() {
-        Loan loan = createAndPersistLoan();
-        loan.setLoanDate(LocalDate.now().minusDays(5));
-        entityManager.persist(loan);
+    @DisplayName("Deve buscar emprestimos pelo isbn do livro ou customer a partir do ultimo id informado.")
+    public void findLoanByIsbnOrCustomerAfterTest() {
+        Loan first = createAndPersistLoan();
+        persistLateLoan("456", "a@email.com");
+        Loan other = Loan.builder().book(createNewBook()).customer("Ciclano").loanDate(LocalDate.now()).build();
+        other.getBook().setIsbn("789");
+        entityManager.persist(other.getBook());
+        entityManager.persist(other);
+
+        Slice<Loan> firstSlice = repository.findByBookIsbnOrCustomerAfter("Fulano", "123", 0L, PageRequest.of(0, 1));
+        Slice<Loan> lastSlice = repository.findByBookIsbnOrCustomerAfter("Fulano", "123", first.getId(), PageRequest.of(0, 1));
+
+        assertThat(firstSlice.getContent()).containsExactly(first);
+        assertThat(firstSlice.hasNext()).isTrue();
+        assertThat(lastSlice.getContent()).hasSize(1).doesNotContain(first, other);
+        assertThat(lastSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar a pagina de emprestimos com seus livros em uma consulta mais a contagem.")
+    public void findLoanByIsbnOrCustomerStatementCountTest() {
+        persistLateLoan("123", "a@email.com");
+        persistLateLoan("456", "b@email.com");
+        persistLateLoan("789", "c@email.com");
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        Page<Loan> result = repository.findByBookIsbnOrCustomer("Fulano", "000", PageRequest.of(0, 2));
+        result.forEach(loan -> loan.getBook().getTitle());
 
-        List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve buscar emprestimos com seus livros por cursor em uma unica consulta.")
+    public void findLoanByIsbnOrCustomerAfterStatementCountTest() {
+        persistLateLoan("123", "a@email.com");
+        persistLateLoan("456", "b@email.com");
+        persistLateLoan("789", "c@email.com");
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
 
-        assertThat(result).hasSize(1).contains(loan);
+        Slice<Loan> result = repository.findByBookIsbnOrCustomerAfter("Fulano", "000", 0L, PageRequest.of(0, 10));
+        result.forEach(loan -> loan.getBook().getTitle());
 
+        assertThat(result.getContent()).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
     }
 
     @Test
-    @DisplayName("Deve nao obter emprestimos cuja data de emprestimo for menor ou igual a tres dias.")
-    public void  notfindByLoanDateLessThanAndNotReturnedTest() {
+    @DisplayName("Deve buscar emprestimos de um livro sem carregar o livro novamente.")
+    public void findByBookStatementCountTest() {
         Loan loan = createAndPersistLoan();
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        Page<Loan> result = repository.findByBook(Book.builder().id(loan.getBook().getId()).build(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
 
-        List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+    @Test
+    @DisplayName("Deve obter os emprestimos atrasados de uma faixa de ids em ordem de id.")
+    public void findLateTest() {
+        Loan first = persistLateLoan("1", "b@email.com");
+        Loan second = persistLateLoan("2", "a@email.com");
+        Loan third = persistLateLoan("3", "b@email.com");
+        persistLateLoan("4", "c@email.com");
+        Loan onTime = createAndPersistLoan();
+
+        List<Loan> result = repository.findLate(LocalDateTime.now(), first.getId(), onTime.getId(), PageRequest.of(0, 10));
 
-        assertThat(result).isEmpty();
+        assertThat(result).extracting(Loan::getCustomerEmail).containsExactly("a@email.com", "b@email.com", "c@email.com");
+        assertThat(repository.findLate(LocalDateTime.now(), first.getId(), third.getId(), PageRequest.of(0, 10)))
+                .containsExactly(second, third);
+    }
+
+    @Test
+    @DisplayName("Deve obter o id do emprestimo atrasado na posicao informada a partir do ultimo id.")
+    public void findLateIdsTest() {
+        Loan first = persistLateLoan("1", "b@email.com");
+        persistLateLoan("2", "a@email.com");
+        Loan third = persistLateLoan("3", "b@email.com");
+        createAndPersistLoan();
+
+        assertThat(repository.findLateIds(LocalDateTime.now(), 0L, PageRequest.of(2, 1))).containsExactly(third.getId());
+        assertThat(repository.findLateIds(LocalDateTime.now(), first.getId(), PageRequest.of(2, 1))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve obter os emprestimos em aberto que vencem na janela em ordem de vencimento e id.")
+    public void findDueTest() {
+        LocalDateTime start = LocalDateTime.now().withNano(0);
+        Loan first = persistDueLoan("1", start.plusMinutes(10), false);
+        Loan second = persistDueLoan("2", start.plusMinutes(5), false);
+        Loan third = persistDueLoan("3", start.plusMinutes(10), false);
+        persistDueLoan("4", start.plusMinutes(7), true);
+        persistDueLoan("5", start.plusHours(2), false);
 
+        assertThat(repository.findDue(start, Long.MAX_VALUE, start.plusHours(1), PageRequest.of(0, 2)))
+                .containsExactly(second, first);
+        assertThat(repository.findDue(first.getDueDate(), first.getId(), start.plusHours(1), PageRequest.of(0, 2)))
+                .containsExactly(third);
+        assertThat(repository.findOverdue(Arrays.asList(first.getId(), second.getId()), start.plusMinutes(6)))
+                .containsExactly(second);
     }
+
+    private Loan persistLateLoan(String isbn, String email) {
+        Book book = createNewBook();
+        book.setIsbn(isbn);
+        entityManager.persist(book);
+        Loan loan = Loan.builder()
+                .book(book)
+                .customer("Fulano")
+                .customerEmail(email)
+                .loanDate(LocalDate.now().minusDays(5))
+                .dueDate(LocalDateTime.now().minusDays(1))
+                .build();
+        entityManager.persist(loan);
+        return loan;
+    }
+
+    private Loan persistDueLoan(String isbn, LocalDateTime dueDate, boolean returned) {
+        Book book = createNewBook();
+        book.setIsbn(isbn);
+        entityManager.persist(book);
+        Loan loan = Loan.builder()
+                .book(book)
+                .customer("Fulano")
+                .loanDate(LocalDate.now())
+                .dueDate(dueDate)
+                .returned(returned)
+                .build();
+        entityManager.persist(loan);
+        return loan;
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
     private Book createNewBook() {
         return Book.builder().title("As aventuras").author("Artur").isbn("123").build();
     }
@@ -93,6 +292,7 @@ public class LoanRepositoryTest {
                     .book(book)
                     .customer("Fulano")
                     .loanDate(LocalDate.now())
+                    .dueDate(LocalDateTime.now().plusDays(4))
                     .build();
 
         entityManager.persist(loan);
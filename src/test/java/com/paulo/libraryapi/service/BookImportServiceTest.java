@@ -0,0 +1,116 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.api.dto.BookImportErrorDTO;
+import com.paulo.libraryapi.api.dto.BookImportResultDTO;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.service.impl.BookImportServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(BookImportServiceImpl.class)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@TestPropertySource(properties = "application.books.import.chunk-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookImportServiceTest {
+
+    @Autowired
+    BookImportService service;
+
+    @Autowired
+    BookRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um arquivo NDJSON rejeitando as linhas invalidas.")
+    public void importNdjsonTest() throws Exception {
+        repository.saveAndFlush(Book.builder().title("Existente").author("Autor").isbn("999").build());
+        String body = "{\"title\":\"Dom Casmurro\",\"author\":\"Machado de Assis\",\"isbn\":\"001\"}\n" +
+                "{\"title\":\"Iracema\",\"author\":\"José de Alencar\",\"isbn\":\"002\"}\n" +
+                "\n" +
+                "{\"title\":\"Quebrado\",\n" +
+                "{\"title\":\"Sem isbn\",\"author\":\"Autor\"}\n" +
+                "{\"title\":\"Repetido\",\"author\":\"Autor\",\"isbn\":\"001\"}\n" +
+                "{\"title\":\"Existente\",\"author\":\"Autor\",\"isbn\":\"999\"}\n" +
+                "{\"title\":\"O Cortiço\",\"author\":\"Aluísio Azevedo\",\"isbn\":\"003\"}\n";
+
+        BookImportResultDTO result = service.importBooks(stream(body), BookImportService.Format.NDJSON);
+
+        assertThat(result.getTotal()).isEqualTo(7);
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(4);
+        assertThat(result.getErrors())
+                .extracting(BookImportErrorDTO::getLine, BookImportErrorDTO::getIsbn)
+                .containsExactlyInAnyOrder(
+                        tuple(4L, null),
+                        tuple(5L, null),
+                        tuple(6L, "001"),
+                        tuple(7L, "999"));
+        assertThat(repository.count()).isEqualTo(4);
+        assertThat(repository.findByIsbn("002").map(Book::getAuthor)).contains("José de Alencar");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar isbn repetido dentro do mesmo lote.")
+    public void importDuplicatedIsbnInChunkTest() throws Exception {
+        String body = "{\"title\":\"Dom Casmurro\",\"author\":\"Machado de Assis\",\"isbn\":\"001\"}\n" +
+                "{\"title\":\"Repetido\",\"author\":\"Autor\",\"isbn\":\"001\"}\n";
+
+        BookImportResultDTO result = service.importBooks(stream(body), BookImportService.Format.NDJSON);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(BookImportErrorDTO::getMessage).containsExactly("Isbn duplicado no arquivo.");
+        assertThat(repository.findByIsbn("001").map(Book::getTitle)).contains("Dom Casmurro");
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um arquivo CSV com cabecalho.")
+    public void importCsvTest() throws Exception {
+        String body = "isbn,title,author\n" +
+                "001,\"Memórias Póstumas, de Brás Cubas\",Machado de Assis\n" +
+                "002,Iracema,José de Alencar\n" +
+                "003,,Autor\n";
+
+        BookImportResultDTO result = service.importBooks(stream(body), BookImportService.Format.CSV);
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getErrors())
+                .extracting(BookImportErrorDTO::getLine, BookImportErrorDTO::getIsbn)
+                .containsExactly(tuple(4L, "003"));
+        Optional<Book> book = repository.findByIsbn("001");
+        assertThat(book.map(Book::getTitle)).contains("Memórias Póstumas, de Brás Cubas");
+    }
+
+    private InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
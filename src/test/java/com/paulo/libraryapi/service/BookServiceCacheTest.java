@@ -0,0 +1,217 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.config.CacheConfig;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.repository.BookDeletionRepository;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@Import({SimpleMeterRegistry.class, CacheConfig.class, BookServiceImpl.class})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@TestPropertySource(properties = {
+        "spring.cache.type=caffeine",
+        "spring.cache.caffeine.spec=maximumSize=100,expireAfterWrite=10m,recordStats"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class BookServiceCacheTest {
+
+    @Autowired
+    BookService service;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @MockBean
+    BookRepository repository;
+
+    @MockBean
+    BookDeletionRepository deletionRepository;
+
+    @Test
+    @DisplayName("Deve buscar o livro na base apenas uma vez por id.")
+    public void cacheGetByIdTest() {
+        Book book = createValidBook();
+        Mockito.when(repository.findById(1l)).thenReturn(Optional.of(book));
+
+        service.getById(1l);
+        Optional<Book> foundBook = service.getById(1l);
+
+        assertThat(foundBook).contains(book);
+        verify(repository, times(1)).findById(1l);
+    }
+
+    @Test
+    @DisplayName("Deve buscar o livro na base apenas uma vez por isbn.")
+    public void cacheGetBookByIsbnTest() {
+        Book book = createValidBook();
+        Mockito.when(repository.findByIsbn("123")).thenReturn(Optional.of(book));
+
+        service.getBookByIsbn("123");
+        Optional<Book> foundBook = service.getBookByIsbn("123");
+
+        assertThat(foundBook).contains(book);
+        verify(repository, times(1)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Deve nao guardar em cache livros inexistentes.")
+    public void notCacheMissingBookTest() {
+        Mockito.when(repository.findById(1l)).thenReturn(Optional.empty());
+
+        service.getById(1l);
+        service.getById(1l);
+
+        verify(repository, times(2)).findById(1l);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao atualizar um livro.")
+    public void evictOnUpdateTest() {
+        Book book = createValidBook();
+        Mockito.when(repository.findById(1l)).thenReturn(Optional.of(book));
+        Mockito.when(repository.findByIsbn("123")).thenReturn(Optional.of(book));
+
+        service.getById(1l);
+        service.getBookByIsbn("123");
+        service.update(book);
+        service.getById(1l);
+        service.getBookByIsbn("123");
+
+        verify(repository, times(2)).findById(1l);
+        verify(repository, times(2)).findByIsbn("123");
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao remover um livro.")
+    public void evictOnDeleteTest() {
+        Book book = createValidBook();
+        Mockito.when(repository.findById(1l)).thenReturn(Optional.of(book), Optional.empty());
+
+        service.getById(1l);
+        service.delete(book);
+        Optional<Book> foundBook = service.getById(1l);
+
+        assertThat(foundBook).isEmpty();
+        verify(repository, times(2)).findById(1l);
+    }
+
+    @Test
+    @DisplayName("Deve compartilhar uma unica consulta por chave entre leituras concorrentes do mesmo livro.")
+    public void coalesceConcurrentReadsTest() throws Exception {
+        int readers = 20;
+        Book book = createValidBook();
+        Book other = Book.builder().id(2l).isbn("456").author("Fulano").title("Outro").build();
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(repository.findById(1l)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(book);
+        });
+        Mockito.when(repository.findById(2l)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(other);
+        });
+        Mockito.when(repository.findByIsbn("123")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(book);
+        });
+
+        List<Callable<Optional<Book>>> calls = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            calls.add(() -> service.getById(1l));
+            calls.add(() -> service.getById(2l));
+            calls.add(() -> service.getBookByIsbn("123"));
+        }
+        List<Optional<Book>> results = burst(calls, 3 * (readers - 1), release);
+
+        assertThat(results).hasSize(3 * readers).allSatisfy(result -> assertThat(result).isPresent());
+        verify(repository, times(1)).findById(1l);
+        verify(repository, times(1)).findById(2l);
+        verify(repository, times(1)).findByIsbn("123");
+        assertThat(meterRegistry.get("books.reads.coalesced").tag("key", "id").counter().count()).isEqualTo(2 * (readers - 1));
+        assertThat(meterRegistry.get("books.reads.coalesced").tag("key", "isbn").counter().count()).isEqualTo(readers - 1);
+    }
+
+    @Test
+    @DisplayName("Deve propagar o erro da consulta compartilhada para todas as leituras concorrentes.")
+    public void coalesceFailureTest() throws Exception {
+        int readers = 5;
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(repository.findById(1l)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("database unavailable");
+        });
+        List<Callable<Optional<Book>>> calls = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            calls.add(() -> service.getById(1l));
+        }
+
+        Throwable exception = catchThrowable(() -> burst(calls, readers - 1, release));
+
+        assertThat(exception).isInstanceOf(ExecutionException.class).hasRootCauseMessage("database unavailable");
+        verify(repository, times(1)).findById(1l);
+    }
+
+    private List<Optional<Book>> burst(List<Callable<Optional<Book>>> calls, int followers, CountDownLatch release)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(calls.size());
+        try {
+            List<Future<Optional<Book>>> futures = new ArrayList<>();
+            for (Callable<Optional<Book>> call : calls) {
+                futures.add(executor.submit(call));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (coalesced() < followers && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            List<Optional<Book>> results = new ArrayList<>();
+            for (Future<Optional<Book>> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("books.reads.coalesced").counters().stream().mapToDouble(counter -> counter.count()).sum();
+    }
+
+    private Book createValidBook() {
+        return Book.builder().id(1l).isbn("123").author("Fulano").title("As aventuras").build();
+    }
+}
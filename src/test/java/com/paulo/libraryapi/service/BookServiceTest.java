@@ -1,10 +1,14 @@
 package com.paulo.libraryapi.service;
 
 
+import com.paulo.libraryapi.config.CacheConfig;
 import com.paulo.libraryapi.exception.BussinessException;
 import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.BookDeletion;
+import com.paulo.libraryapi.model.repository.BookDeletionRepository;
 import com.paulo.libraryapi.model.repository.BookRepository;
 import com.paulo.libraryapi.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,6 +16,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -19,7 +25,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,12 +40,17 @@ public class BookServiceTest {
 
     BookService service;
 
+    ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+
     @MockBean
     BookRepository repository;
 
+    @MockBean
+    BookDeletionRepository deletionRepository;
+
     @BeforeEach
     void setUp() {
-        this.service = new BookServiceImpl(repository);
+        this.service = new BookServiceImpl(repository, deletionRepository, cacheManager, new SimpleMeterRegistry());
     }
 
     @Test
@@ -45,8 +58,7 @@ public class BookServiceTest {
     public void saveBookTest() {
         Book book = createValidBook();
         Book saveBook = Book.builder().id(1l).isbn("123").author("Fulano").title("As aventuras").build();
-        Mockito.when(repository.existsByIsbn(book.getIsbn())).thenReturn(false);
-        Mockito.when( repository.save(book)).thenReturn(saveBook);
+        Mockito.when( repository.saveAndFlush(book)).thenReturn(saveBook);
 
            Book savedBook = service.save(book);
 
@@ -62,13 +74,13 @@ public class BookServiceTest {
        @DisplayName("Deve lançar erro de negocio ao tentar salvar um livro com isbn duplicado.")
        public void shouldNotSaveWithDuplicatedISBN() {
             Book book = createValidBook();
-            Mockito.when(repository.existsByIsbn(book.getIsbn())).thenReturn(true);
+            Mockito.when(repository.saveAndFlush(book)).thenThrow(new DataIntegrityViolationException("uk_book_isbn"));
             Throwable exception = Assertions.catchThrowable(() -> service.save(book));
             assertThat(exception)
                 .isInstanceOf(BussinessException.class)
                 .hasMessage("Isbn já cadastrado.");
 
-            verify(repository, Mockito.never()).save(book);
+            verify(repository, Mockito.never()).existsByIsbn(book.getIsbn());
 
 
     }
@@ -111,6 +123,31 @@ public class BookServiceTest {
         service.delete(book);
 
         verify(repository, times(1)).delete(book);
+        verify(deletionRepository).save(Mockito.argThat(deletion ->
+                deletion.getBookId().equals(1l) && deletion.getIsbn().equals(book.getIsbn()) && deletion.getDeletedAt() != null));
+    }
+
+    @Test
+    @DisplayName("Deve reindexar e invalidar o cache dos livros alterados ou removidos por outro no.")
+    public void syncChangesTest() {
+        Instant since = Instant.now().minusSeconds(60);
+        Book changed = Book.builder().id(1l).isbn("123").title("Novo titulo").build();
+        BookDeletion deletion = BookDeletion.builder().bookId(2l).isbn("456").deletedAt(Instant.now()).build();
+        Mockito.when(repository.findUpdatedSince(since)).thenReturn(Collections.singletonList(changed));
+        Mockito.when(deletionRepository.findByDeletedAtGreaterThanEqual(since)).thenReturn(Collections.singletonList(deletion));
+        cacheManager.getCache(CacheConfig.BOOKS).put(1l, createValidBook());
+        cacheManager.getCache(CacheConfig.BOOKS).put(2l, createValidBook());
+        cacheManager.getCache(CacheConfig.BOOKS_BY_ISBN).put("456", createValidBook());
+        cacheManager.getCache(CacheConfig.BOOKS_BY_ISBN).put("789", createValidBook());
+
+        assertThat(service.syncChanges(since)).isEqualTo(2);
+
+        verify(repository).reindex(Collections.singletonList(changed));
+        verify(repository).purge(Collections.singletonList(2l));
+        assertThat(cacheManager.getCache(CacheConfig.BOOKS).get(1l)).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.BOOKS).get(2l)).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.BOOKS_BY_ISBN).get("456")).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.BOOKS_BY_ISBN).get("789")).isNotNull();
     }
 
     @Test
@@ -153,7 +190,7 @@ public class BookServiceTest {
         Book book = createValidBook();
 
         Page<Book> page = new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0,10), 1);
-        Mockito.when(repository.findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
+        Mockito.when(repository.search(Mockito.any(Book.class), Mockito.any(PageRequest.class)))
                 .thenReturn(page);
         Page<Book> result = service.find(book, PageRequest.of(0,10));
         assertThat(result.getTotalElements()).isEqualTo(1);
@@ -161,6 +198,21 @@ public class BookServiceTest {
         assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
 
+        verify(repository, Mockito.never()).findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Deve listar livros sem consultar o indice quando nao houver filtro")
+    public void findBookWithoutFilterTest() {
+        Book book = createValidBook();
+
+        Page<Book> page = new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0,10), 1);
+        Mockito.when(repository.findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
+                .thenReturn(page);
+        Page<Book> result = service.find(new Book(), PageRequest.of(0,10));
+        assertThat(result.getContent()).isEqualTo(Arrays.asList(book));
+
+        verify(repository, Mockito.never()).search(Mockito.any(Book.class), Mockito.any(PageRequest.class));
     }
 
     @Test
@@ -0,0 +1,67 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.model.entity.EmailOutbox;
+import com.paulo.libraryapi.model.entity.EmailStatus;
+import com.paulo.libraryapi.model.repository.EmailOutboxRepository;
+import com.paulo.libraryapi.service.impl.EmailServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class EmailServiceTest {
+
+    @MockBean
+    EmailOutboxRepository repository;
+
+    EmailService service;
+
+    @BeforeEach
+    void setUp() {
+        this.service = new EmailServiceImpl(repository);
+    }
+
+    @Test
+    @DisplayName("Deve enfileirar um email por destinatario ignorando os ja enfileirados.")
+    @SuppressWarnings("unchecked")
+    public void enqueueMailsTest() {
+        Mockito.when(repository.findRecipientsByDedupKey(anyString(), anyCollection()))
+                .thenReturn(Collections.singletonList("a@email.com"));
+
+        service.sendMails(Arrays.asList("a@email.com", "b@email.com", "b@email.com"), "Atrasado");
+
+        ArgumentCaptor<List<EmailOutbox>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(repository).saveAll(captor.capture());
+        List<EmailOutbox> mails = captor.getValue();
+        assertThat(mails).hasSize(1);
+        assertThat(mails.get(0).getRecipient()).isEqualTo("b@email.com");
+        assertThat(mails.get(0).getBody()).isEqualTo("Atrasado");
+        assertThat(mails.get(0).getStatus()).isEqualTo(EmailStatus.PENDING);
+        assertThat(mails.get(0).getAttempts()).isEqualTo(0);
+        assertThat(mails.get(0).getDedupKey()).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve nao acessar a base quando nao houver destinatarios.")
+    public void enqueueEmptyMailsTest() {
+        service.sendMails(Collections.emptyList(), "Atrasado");
+
+        Mockito.verify(repository, Mockito.never()).saveAll(any());
+    }
+}
@@ -0,0 +1,138 @@
+package com.paulo.libraryapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paulo.libraryapi.api.dto.BookDTO;
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.model.repository.LoanRepository;
+import com.paulo.libraryapi.service.impl.ExportServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(ExportServiceImpl.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@TestPropertySource(properties = "application.export.chunk-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ExportServiceTest {
+
+    @Autowired
+    ExportService service;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    List<Book> books;
+
+    @BeforeEach
+    void setUp() {
+        books = bookRepository.saveAll(Arrays.asList(
+                Book.builder().title("Dom Casmurro").author("Machado de Assis").isbn("001").build(),
+                Book.builder().title("Iracema").author("José de Alencar").isbn("002").build(),
+                Book.builder().title("O Cortiço, edição \"especial\"").author("Aluísio Azevedo").isbn("003").build()));
+        loanRepository.saveAll(Arrays.asList(
+                Loan.builder().book(books.get(0)).customer("Fulano").customerEmail("fulano@email.com").loanDate(LocalDate.now()).build(),
+                Loan.builder().book(books.get(2)).customer("Ciclano").customerEmail("ciclano@email.com").loanDate(LocalDate.now()).build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve exportar todos os livros em NDJSON.")
+    public void exportBooksNdjsonTest() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = service.exportBooks(output, ExportService.Format.NDJSON);
+
+        List<BookDTO> rows = new ArrayList<>();
+        for (String line : lines(output)) {
+            rows.add(objectMapper.readValue(line, BookDTO.class));
+        }
+        assertThat(exported).isEqualTo(3);
+        assertThat(rows)
+                .extracting(BookDTO::getId, BookDTO::getIsbn, BookDTO::getTitle)
+                .containsExactly(
+                        tuple(books.get(0).getId(), "001", "Dom Casmurro"),
+                        tuple(books.get(1).getId(), "002", "Iracema"),
+                        tuple(books.get(2).getId(), "003", "O Cortiço, edição \"especial\""));
+    }
+
+    @Test
+    @DisplayName("Deve exportar todos os livros em CSV.")
+    public void exportBooksCsvTest() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        service.exportBooks(output, ExportService.Format.CSV);
+
+        assertThat(lines(output)).containsExactly(
+                "id,title,author,isbn,available",
+                books.get(0).getId() + ",\"Dom Casmurro\",\"Machado de Assis\",001,true",
+                books.get(1).getId() + ",Iracema,\"José de Alencar\",002,true",
+                books.get(2).getId() + ",\"O Cortiço, edição \"\"especial\"\"\",\"Aluísio Azevedo\",003,true");
+    }
+
+    @Test
+    @DisplayName("Deve exportar todos os empréstimos com o livro em NDJSON e CSV.")
+    public void exportLoansTest() throws Exception {
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        long exported = service.exportLoans(ndjson, ExportService.Format.NDJSON);
+        service.exportLoans(csv, ExportService.Format.CSV);
+
+        List<LoanDTO> rows = new ArrayList<>();
+        for (String line : lines(ndjson)) {
+            rows.add(objectMapper.readValue(line, LoanDTO.class));
+        }
+        assertThat(exported).isEqualTo(2);
+        assertThat(rows)
+                .extracting(LoanDTO::getIsbn, LoanDTO::getCustomer, LoanDTO::getEmail, loan -> loan.getBook().getTitle())
+                .containsExactly(
+                        tuple("001", "Fulano", "fulano@email.com", "Dom Casmurro"),
+                        tuple("003", "Ciclano", "ciclano@email.com", "O Cortiço, edição \"especial\""));
+        assertThat(lines(csv)).hasSize(3).first().isEqualTo("id,isbn,customer,email");
+    }
+
+    private static List<String> lines(ByteArrayOutputStream output) {
+        String text = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(text).endsWith("\n");
+        return Arrays.asList(text.split("\n"));
+    }
+}
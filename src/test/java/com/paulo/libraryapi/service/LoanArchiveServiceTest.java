@@ -0,0 +1,136 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.entity.LoanArchiveSegment;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.model.repository.LoanArchiveSegmentRepository;
+import com.paulo.libraryapi.model.repository.LoanRepository;
+import com.paulo.libraryapi.service.impl.LoanArchiveServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LoanArchiveServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanArchiveSegmentRepository segmentRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        segmentRepository.deleteAllInBatch();
+        loanRepository.deleteAllInBatch();
+        bookRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve mover os emprestimos devolvidos e antigos para segmentos e remove-los da tabela.")
+    public void archiveTest() throws IOException {
+        Book book = bookRepository.save(Book.builder().title("As aventuras").author("Artur").isbn("123").build());
+        Book other = bookRepository.save(Book.builder().title("Outro").author("Artur").isbn("456").build());
+        Loan first = saveLoan(book, "Fulano", LocalDate.now().minusDays(400), true);
+        Loan second = saveLoan(other, "Fulano", LocalDate.now().minusDays(300), true);
+        Loan third = saveLoan(book, "Ciclano", LocalDate.now().minusDays(200), true);
+        Loan recent = saveLoan(other, "Ciclano", LocalDate.now().minusDays(10), true);
+        Loan open = saveLoan(book, "Beltrano", LocalDate.now().minusDays(500), false);
+        LoanArchiveService service = service();
+
+        assertThat(service.archive()).isEqualTo(3);
+
+        assertThat(loanRepository.findAll()).extracting(Loan::getId).containsExactlyInAnyOrder(recent.getId(), open.getId());
+        assertThat(segmentRepository.findAllByOrderByName()).extracting(LoanArchiveSegment::getRows).containsExactly(2, 1);
+        assertThat(files("*.seg")).hasSize(2);
+        assertThat(files("*.pending")).isEmpty();
+        assertThat(service.countByBook(book.getId())).isEqualTo(2);
+        assertThat(service.findByBook(book.getId(), 0L, 0L, 10)).extracting(Loan::getId).containsExactly(first.getId(), third.getId());
+        assertThat(service.countByIsbnOrCustomer("456", "Ciclano")).isEqualTo(2);
+        assertThat(service.findByIsbnOrCustomer("456", "Ciclano", 0L, 0L, 10)).extracting(Loan::getId)
+                .containsExactly(second.getId(), third.getId());
+        assertThat(service.findByIsbnOrCustomer("456", "Fulano", 0L, 1L, 1)).extracting(Loan::getId)
+                .containsExactly(second.getId());
+        assertThat(service.findByIsbnOrCustomer("123", "Ciclano", first.getId(), 0L, 10)).extracting(Loan::getId)
+                .containsExactly(third.getId());
+        assertThat(service.countByIsbnOrCustomer("999", "Ninguem")).isZero();
+        assertThat(service.archive()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve reabrir os segmentos apos reiniciar e concluir a promocao de um segmento pendente.")
+    public void restartTest() throws IOException {
+        Book book = bookRepository.save(Book.builder().title("As aventuras").author("Artur").isbn("123").build());
+        Loan loan = saveLoan(book, "Fulano", LocalDate.now().minusDays(400), true);
+        service().archive();
+        Path segment = files("*.seg").get(0);
+        Path pending = directory.resolve(segment.getFileName().toString().replace(".seg", ".pending"));
+        Files.move(segment, pending);
+        Path orphan = Files.write(directory.resolve("loans-orphan.pending"), new byte[] {1, 2, 3});
+
+        LoanArchiveService restarted = service();
+
+        assertThat(restarted.findByBook(book.getId(), 0L, 0L, 10)).extracting(Loan::getId).containsExactly(loan.getId());
+        assertThat(files("*.seg")).containsExactly(segment);
+        assertThat(restarted.archive()).isZero();
+        assertThat(orphan).doesNotExist();
+    }
+
+    private LoanArchiveService service() {
+        LoanArchiveServiceImpl service = new LoanArchiveServiceImpl(loanRepository, segmentRepository, transactionManager,
+                directory.toString(), Duration.ofDays(180), 2, 2);
+        service.refresh();
+        return service;
+    }
+
+    private Loan saveLoan(Book book, String customer, LocalDate loanDate, boolean returned) {
+        return loanRepository.save(Loan.builder()
+                .book(book)
+                .customer(customer)
+                .customerEmail(customer.toLowerCase() + "@email.com")
+                .loanDate(loanDate)
+                .dueDate(loanDate.plusDays(4).atStartOfDay())
+                .returned(returned)
+                .build());
+    }
+
+    private List<Path> files(String glob) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileSystem().getPathMatcher("glob:" + glob).matches(file.getFileName()))
+                    .collect(Collectors.toList());
+        }
+    }
+}
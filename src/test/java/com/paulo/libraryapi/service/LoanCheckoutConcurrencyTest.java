@@ -0,0 +1,106 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.config.CacheConfig;
+import com.paulo.libraryapi.config.LoanPolicy;
+import com.paulo.libraryapi.exception.BussinessException;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.model.repository.LoanRepository;
+import com.paulo.libraryapi.model.repository.LoanStatsWriter;
+import com.paulo.libraryapi.service.impl.BookServiceImpl;
+import com.paulo.libraryapi.service.impl.LoanArchiveServiceImpl;
+import com.paulo.libraryapi.service.impl.LoanServiceImpl;
+import com.paulo.libraryapi.service.impl.ReportServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({SimpleMeterRegistry.class, CacheConfig.class, LoanPolicy.class, BookServiceImpl.class, LoanArchiveServiceImpl.class,
+        LoanServiceImpl.class, ReportServiceImpl.class, LoanStatsWriter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LoanCheckoutConcurrencyTest {
+
+    static final int THREADS = 16;
+    static final int ATTEMPTS_PER_THREAD = 25;
+
+    @Autowired
+    LoanService service;
+
+    @Autowired
+    LoanRepository repository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve permitir apenas um emprestimo quando muitas threads disputam o mesmo isbn.")
+    public void hammerSameIsbnTest() throws Exception {
+        bookRepository.saveAndFlush(Book.builder().title("As aventuras").author("Artur").isbn("123").build());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String customer = "customer-" + i;
+            results.add(executor.submit(() -> {
+                start.await();
+                int wins = 0;
+                for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                    Book book = bookRepository.findByIsbn("123").get();
+                    try {
+                        service.save(Loan.builder()
+                                .book(book)
+                                .customer(customer)
+                                .customerEmail(customer + "@email.com")
+                                .loanDate(LocalDate.now())
+                                .build());
+                        wins++;
+                    } catch (BussinessException ex) {
+                        assertThat(ex).hasMessage("Book already loaned.");
+                    }
+                }
+                return wins;
+            }));
+        }
+
+        start.countDown();
+        int winners = 0;
+        for (Future<Integer> result : results) {
+            winners += result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(winners).isEqualTo(1);
+        assertThat(repository.count()).isEqualTo(1);
+        assertThat(repository.findAll()).extracting(Loan::getReturned).containsExactly(false);
+    }
+}
@@ -0,0 +1,237 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.config.CacheConfig;
+import com.paulo.libraryapi.config.LoanPolicy;
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.api.dto.LoanOutcomeDTO;
+import com.paulo.libraryapi.exception.BussinessException;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.model.repository.LoanRepository;
+import com.paulo.libraryapi.model.repository.LoanStatsWriter;
+import com.paulo.libraryapi.service.impl.BookServiceImpl;
+import com.paulo.libraryapi.service.impl.LoanArchiveServiceImpl;
+import com.paulo.libraryapi.service.impl.LoanServiceImpl;
+import com.paulo.libraryapi.service.impl.ReportServiceImpl;
+import com.paulo.libraryapi.service.schedule.BookAvailabilityReconciler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({SimpleMeterRegistry.class, CacheConfig.class, LoanPolicy.class, BookServiceImpl.class, LoanArchiveServiceImpl.class,
+        LoanServiceImpl.class, ReportServiceImpl.class, LoanStatsWriter.class})
+@TestPropertySource(properties = "application.loans.bulk.max-items=10")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LoanServiceBulkTest {
+
+    @Autowired
+    LoanService service;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    LoanRepository repository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve realizar emprestimos em lote informando o resultado de cada item.")
+    public void checkoutTest() {
+        Book free = saveBook("001");
+        Book loaned = saveBook("002");
+        saveLoan(loaned, false);
+
+        List<LoanOutcomeDTO> outcomes = service.checkout(Arrays.asList(
+                loan("001"),
+                loan("002"),
+                loan("999"),
+                loan("001"),
+                LoanDTO.builder().isbn("001").customer("Fulano").build()
+        ));
+
+        assertThat(outcomes).extracting(LoanOutcomeDTO::getStatus).containsExactly(
+                LoanOutcomeDTO.Status.CREATED,
+                LoanOutcomeDTO.Status.BOOK_ALREADY_LOANED,
+                LoanOutcomeDTO.Status.BOOK_NOT_FOUND,
+                LoanOutcomeDTO.Status.BOOK_ALREADY_LOANED,
+                LoanOutcomeDTO.Status.INVALID);
+        assertThat(outcomes.get(0).getId()).isNotNull();
+        assertThat(repository.findById(outcomes.get(0).getId()))
+                .hasValueSatisfying(loan -> {
+                    assertThat(loan.getReturned()).isFalse();
+                    assertThat(loan.getDueDate()).isAfter(LocalDateTime.now().plusDays(4).minusMinutes(1));
+                });
+        assertThat(repository.findOpenBookIds(Collections.singleton(free.getId()))).containsExactly(free.getId());
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(bookRepository.findById(free.getId())).hasValueSatisfying(book -> {
+            assertThat(book.getAvailable()).isFalse();
+            assertThat(book.getCurrentLoanId()).isEqualTo(outcomes.get(0).getId());
+        });
+    }
+
+    @Test
+    @DisplayName("Deve devolver emprestimos em lote informando o resultado de cada item.")
+    public void returnLoansTest() {
+        Book book = saveBook("001");
+        Loan first = saveLoan(book, false);
+        Loan second = saveLoan(saveBook("002"), false);
+        Loan returned = saveLoan(saveBook("003"), true);
+
+        List<LoanOutcomeDTO> outcomes = service.returnLoans(Arrays.asList(
+                first.getId(), second.getId(), returned.getId(), 999999L, first.getId()));
+
+        assertThat(outcomes).extracting(LoanOutcomeDTO::getStatus).containsExactly(
+                LoanOutcomeDTO.Status.RETURNED,
+                LoanOutcomeDTO.Status.RETURNED,
+                LoanOutcomeDTO.Status.ALREADY_RETURNED,
+                LoanOutcomeDTO.Status.NOT_FOUND,
+                LoanOutcomeDTO.Status.ALREADY_RETURNED);
+        assertThat(repository.findAll()).extracting(Loan::getReturned).containsOnly(true);
+        assertThat(repository.findOpenBookIds(Collections.singleton(book.getId()))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve manter a disponibilidade do livro ao emprestar e devolver.")
+    public void availabilityTest() {
+        Book book = saveBook("001");
+
+        Loan loan = service.save(Loan.builder().book(book).customer("Fulano").customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now()).build());
+
+        assertThat(bookRepository.findById(book.getId())).hasValueSatisfying(found -> {
+            assertThat(found.getAvailable()).isFalse();
+            assertThat(found.getCurrentLoanId()).isEqualTo(loan.getId());
+        });
+
+        service.returnLoans(Collections.singletonList(loan.getId()));
+
+        assertThat(bookRepository.findById(book.getId())).hasValueSatisfying(found -> {
+            assertThat(found.getAvailable()).isTrue();
+            assertThat(found.getCurrentLoanId()).isNull();
+        });
+    }
+
+    @Test
+    @DisplayName("Deve corrigir a disponibilidade dos livros divergentes dos emprestimos abertos.")
+    public void reconcileAvailabilityTest() {
+        Book first = saveBook("001");
+        Book second = saveBook("002");
+        saveBook("003");
+        Loan loan = saveLoan(first, false);
+        saveLoan(second, false);
+        BookAvailabilityReconciler reconciler = new BookAvailabilityReconciler(bookService, new SimpleMeterRegistry(), 1);
+
+        assertThat(reconciler.reconcile()).isEqualTo(2);
+        assertThat(reconciler.reconcile()).isZero();
+        assertThat(bookRepository.findById(first.getId()).map(Book::getCurrentLoanId)).contains(loan.getId());
+        assertThat(bookRepository.findAll()).extracting(Book::getAvailable).containsExactlyInAnyOrder(false, false, true);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar lotes maiores que o limite configurado.")
+    public void bulkLimitTest() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < 11; i++) {
+            ids.add(i);
+        }
+
+        Throwable exception = catchThrowable(() -> service.returnLoans(ids));
+
+        assertThat(exception).isInstanceOf(BussinessException.class)
+                .hasMessage("Bulk requests are limited to 10 items.");
+    }
+
+    @Test
+    @DisplayName("Deve manter apenas um emprestimo aberto por livro com emprestimos simples e em lote concorrentes.")
+    public void concurrentCheckoutTest() throws Exception {
+        Book book = saveBook("001");
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            boolean bulk = i % 2 == 0;
+            Callable<Boolean> checkout = () -> {
+                start.await();
+                if (bulk) {
+                    return service.checkout(Collections.singletonList(loan("001"))).get(0).getStatus()
+                            == LoanOutcomeDTO.Status.CREATED;
+                }
+                try {
+                    service.save(Loan.builder().book(book).customer("Fulano").customerEmail("fulano@email.com")
+                            .loanDate(LocalDate.now()).build());
+                    return true;
+                } catch (BussinessException ex) {
+                    return false;
+                }
+            };
+            results.add(executor.submit(checkout));
+        }
+
+        start.countDown();
+        int winners = 0;
+        for (Future<Boolean> result : results) {
+            winners += result.get(30, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertThat(winners).isEqualTo(1);
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    private LoanDTO loan(String isbn) {
+        return LoanDTO.builder().isbn(isbn).customer("Fulano").email("fulano@email.com").build();
+    }
+
+    private Book saveBook(String isbn) {
+        return bookRepository.saveAndFlush(Book.builder().title("As aventuras").author("Artur").isbn(isbn).build());
+    }
+
+    private Loan saveLoan(Book book, boolean returned) {
+        return repository.saveAndFlush(Loan.builder()
+                .book(book)
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now())
+                .returned(returned)
+                .build());
+    }
+}
@@ -1,9 +1,11 @@
 package com.paulo.libraryapi.service;
 
 import com.paulo.libraryapi.api.dto.LoanFilterDTO;
+import com.paulo.libraryapi.config.LoanPolicy;
 import com.paulo.libraryapi.exception.BussinessException;
 import com.paulo.libraryapi.model.entity.Book;
 import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.BookRepository;
 import com.paulo.libraryapi.model.repository.LoanRepository;
 import com.paulo.libraryapi.service.impl.LoanServiceImpl;
 import org.assertj.core.api.Assertions;
@@ -15,15 +17,22 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -36,11 +45,27 @@ public class LoanServiceTest {
     @MockBean
     LoanRepository repository;
 
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    ReportService reportService;
+
+    @MockBean
+    LoanArchiveService archiveService;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
     LoanService service;
 
     @BeforeEach
     void setUp() {
-        this.service = new LoanServiceImpl(repository);
+        this.service = new LoanServiceImpl(repository, bookRepository, bookService, reportService, archiveService,
+                new LoanPolicy(Duration.ofDays(4)), transactionManager);
     }
 
     @Test
@@ -50,8 +75,7 @@ public class LoanServiceTest {
 
         Loan savedLoan = loan;
         savedLoan.setId(1l);
-        Mockito.when(repository.existsByBookAndNotReturned(loan.getBook())).thenReturn(false);
-        Mockito.when(repository.save(loan)).thenReturn(savedLoan);
+        Mockito.when(repository.saveAndFlush(loan)).thenReturn(savedLoan);
 
         Loan loanSaved = service.save(loan);
 
@@ -59,8 +83,10 @@ public class LoanServiceTest {
         assertThat(loanSaved.getBook().getId()).isEqualTo(loan.getBook().getId());
         assertThat(loanSaved.getLoanDate()).isEqualTo(loan.getLoanDate());
         assertThat(loanSaved.getCustomer()).isEqualTo(loan.getCustomer());
+        assertThat(loanSaved.getDueDate()).isBetween(LocalDateTime.now().plusDays(4).minusMinutes(1), LocalDateTime.now().plusDays(4));
 
-        Mockito.verify(repository, Mockito.times(1)).save(loan);
+        Mockito.verify(repository, Mockito.times(1)).saveAndFlush(loan);
+        Mockito.verify(reportService).recordLoans(Collections.singleton(savedLoan));
 
     }
 
@@ -69,14 +95,12 @@ public class LoanServiceTest {
     public void loanedBookTest() {
         Loan savingLoan = createLoan();
 
-        Mockito.when(repository.existsByBookAndNotReturned(savingLoan.getBook())).thenReturn(true);
+        Mockito.when(repository.saveAndFlush(savingLoan)).thenThrow(new DataIntegrityViolationException("uk_loan_open_book"));
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
 
         assertThat(exception).isInstanceOf(BussinessException.class)
                 .hasMessage("Book already loaned.");
 
-        Mockito.verify(repository, Mockito.never()).save(savingLoan);
-
     }
 
 
@@ -108,10 +132,12 @@ public class LoanServiceTest {
         Loan loan = createLoan();
         loan.setId(1l);
         loan.setReturned(true);
-        Mockito.when(repository.save(loan)).thenReturn(loan);
+        Mockito.when(repository.findReturnedById(1l)).thenReturn(false);
+        Mockito.when(repository.saveAndFlush(loan)).thenReturn(loan);
         Loan updatedLoan = service.update(loan);
         assertThat(updatedLoan.getReturned()).isTrue();
-        Mockito.verify(repository, Mockito.times(1)).save(loan);
+        Mockito.verify(repository, Mockito.times(1)).saveAndFlush(loan);
+        Mockito.verify(reportService).recordReturns(Collections.singleton(1l), true);
     }
 
     @Test
@@ -133,6 +159,60 @@ public class LoanServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Deve completar a pagina com os emprestimos arquivados apos os emprestimos ativos")
+    public void findWithArchivedLoansTest() {
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().customer("Fulano").isbn("123").build();
+        Loan live = createLoan();
+        live.setId(10l);
+        Loan firstArchived = archivedLoan(1l);
+        Loan secondArchived = archivedLoan(2l);
+        Book book = Book.builder().id(1l).isbn("123").title("As aventuras").build();
+        Mockito.when(repository.findByBookIsbnOrCustomer("Fulano", "123", PageRequest.of(0, 2)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(live), PageRequest.of(0, 2), 1));
+        Mockito.when(repository.findByBookIsbnOrCustomer("Fulano", "123", PageRequest.of(1, 2)))
+                .thenReturn(new PageImpl<>(Collections.emptyList(), PageRequest.of(1, 2), 1));
+        Mockito.when(archiveService.countByIsbnOrCustomer("123", "Fulano")).thenReturn(2L);
+        Mockito.when(archiveService.findByIsbnOrCustomer("123", "Fulano", 0L, 0L, 1)).thenReturn(Collections.singletonList(firstArchived));
+        Mockito.when(archiveService.findByIsbnOrCustomer("123", "Fulano", 0L, 1L, 2)).thenReturn(Collections.singletonList(secondArchived));
+        Mockito.when(bookRepository.findAllById(Collections.singleton(1l))).thenReturn(Collections.singletonList(book));
+
+        Page<Loan> first = service.find(loanFilterDTO, PageRequest.of(0, 2));
+        Page<Loan> second = service.find(loanFilterDTO, PageRequest.of(1, 2));
+
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.getContent()).extracting(Loan::getId).containsExactly(10l, 1l);
+        assertThat(first.getContent().get(1).getBook().getTitle()).isEqualTo("As aventuras");
+        assertThat(second.getContent()).extracting(Loan::getId).containsExactly(2l);
+    }
+
+    @Test
+    @DisplayName("Deve intercalar os emprestimos arquivados pelo id na paginacao por cursor")
+    public void findAfterWithArchivedLoansTest() {
+        Book book = Book.builder().id(1l).isbn("123").title("As aventuras").build();
+        Loan live = createLoan();
+        live.setId(5l);
+        Mockito.when(repository.findByBookAndIdGreaterThanOrderByIdAsc(book, 2l, PageRequest.of(0, 2)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(live), PageRequest.of(0, 2), false));
+        Mockito.when(archiveService.findByBook(1l, 2l, 0L, 3)).thenReturn(Arrays.asList(archivedLoan(3l), archivedLoan(7l)));
+
+        Slice<Loan> result = service.getLoansByBookAfter(book, 2l, 2);
+
+        assertThat(result.getContent()).extracting(Loan::getId).containsExactly(3l, 5l);
+        assertThat(result.getContent()).extracting(Loan::getBook).containsOnly(book, live.getBook());
+        assertThat(result.hasNext()).isTrue();
+    }
+
+    private Loan archivedLoan(Long id) {
+        return Loan.builder()
+                .id(id)
+                .book(Book.builder().id(1l).isbn("123").build())
+                .loanDate(LocalDate.now().minusYears(1))
+                .customer("Fulano")
+                .returned(true)
+                .build();
+    }
+
     private Loan createLoan() {
         return Loan.builder()
                 .book(
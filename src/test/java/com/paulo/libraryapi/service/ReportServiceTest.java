@@ -0,0 +1,274 @@
+package com.paulo.libraryapi.service;
+
+import com.paulo.libraryapi.api.dto.CustomerLoansDTO;
+import com.paulo.libraryapi.api.dto.DailyLoansDTO;
+import com.paulo.libraryapi.api.dto.OverdueLoansDTO;
+import com.paulo.libraryapi.api.dto.LoanDTO;
+import com.paulo.libraryapi.api.dto.TopBookDTO;
+import com.paulo.libraryapi.config.CacheConfig;
+import com.paulo.libraryapi.config.LoanPolicy;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.BookLoanStatsRepository;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.model.repository.CustomerLoanStatsRepository;
+import com.paulo.libraryapi.model.repository.LoanArchiveSegmentRepository;
+import com.paulo.libraryapi.model.repository.LoanDailyStatsRepository;
+import com.paulo.libraryapi.model.repository.LoanRepository;
+import com.paulo.libraryapi.model.repository.LoanStatsWriter;
+import com.paulo.libraryapi.service.impl.BookServiceImpl;
+import com.paulo.libraryapi.service.impl.LoanArchiveServiceImpl;
+import com.paulo.libraryapi.service.impl.LoanServiceImpl;
+import com.paulo.libraryapi.service.impl.ReportServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({SimpleMeterRegistry.class, CacheConfig.class, LoanPolicy.class, BookServiceImpl.class, LoanArchiveServiceImpl.class,
+        LoanServiceImpl.class, ReportServiceImpl.class, LoanStatsWriter.class})
+@TestPropertySource(properties = "application.loans.archive.directory=target/report-archive")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReportServiceTest {
+
+    @Autowired
+    ReportService service;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    LoanArchiveService archiveService;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    LoanArchiveSegmentRepository segmentRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanDailyStatsRepository dailyRepository;
+
+    @Autowired
+    BookLoanStatsRepository bookStatsRepository;
+
+    @Autowired
+    CustomerLoanStatsRepository customerRepository;
+
+    @BeforeEach
+    void setUp() {
+        dailyRepository.deleteAllInBatch();
+        bookStatsRepository.deleteAllInBatch();
+        customerRepository.deleteAllInBatch();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        segmentRepository.deleteAllInBatch();
+        archiveService.refresh();
+        FileSystemUtils.deleteRecursively(Paths.get("target/report-archive"));
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve manter os agregados incrementais iguais ao recálculo completo.")
+    public void incrementalMatchesRebuildTest() {
+        LocalDate today = LocalDate.now();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            books.add(bookRepository.save(Book.builder().title("Livro " + i).author("Autor").isbn("00" + i).build()));
+        }
+
+        Loan old = loanService.save(loan(books.get(0), "Fulano", today.minusDays(10)));
+        Loan late = loanService.save(loan(books.get(1), "Ciclano", today.minusDays(6)));
+        loanService.save(loan(books.get(2), "Fulano", today.minusDays(1)));
+
+        old.setReturned(true);
+        loanService.update(old);
+        loanService.save(loan(books.get(0), "Beltrano", today.minusDays(5)));
+
+        late.setReturned(true);
+        loanService.update(late);
+        late.setReturned(false);
+        loanService.update(late);
+        loanService.update(late);
+
+        loanService.checkout(Arrays.asList(
+                LoanDTO.builder().isbn("003").customer("Fulano").email("fulano@email.com").build(),
+                LoanDTO.builder().isbn("004").customer("Beltrano").email("beltrano@email.com").build(),
+                LoanDTO.builder().isbn("002").customer("Ciclano").email("ciclano@email.com").build()));
+        List<Long> openToday = loanRepository.findAll().stream()
+                .filter(loan -> loan.getLoanDate().equals(today))
+                .map(Loan::getId)
+                .collect(Collectors.toList());
+        loanService.returnLoans(openToday.subList(0, 1));
+
+        Snapshot incremental = snapshot(today);
+        service.rebuild();
+        Snapshot rebuilt = snapshot(today);
+
+        assertThat(incremental).usingRecursiveComparison().isEqualTo(rebuilt);
+        assertThat(incremental.daily)
+                .extracting(DailyLoansDTO::getDate, DailyLoansDTO::getLoans, DailyLoansDTO::getOpenLoans)
+                .containsExactly(
+                        tuple(today.minusDays(10), 1L, 0L),
+                        tuple(today.minusDays(6), 1L, 1L),
+                        tuple(today.minusDays(5), 1L, 1L),
+                        tuple(today.minusDays(1), 1L, 1L),
+                        tuple(today, 2L, 1L));
+        assertThat(incremental.overdue).isEqualTo(2L);
+        assertThat(incremental.topBooks.get(0))
+                .extracting(TopBookDTO::getIsbn, TopBookDTO::getLoans)
+                .containsExactly("000", 2L);
+        assertThat(incremental.topCustomers)
+                .extracting(CustomerLoansDTO::getCustomer, CustomerLoansDTO::getLoans, CustomerLoansDTO::getOpenLoans)
+                .containsExactly(
+                        tuple("Fulano", 3L, 1L),
+                        tuple("Beltrano", 2L, 2L),
+                        tuple("Ciclano", 1L, 1L));
+        assertThat(service.customer("Beltrano").map(CustomerLoansDTO::getLoans)).contains(2L);
+        assertThat(service.customer("Ninguem")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve manter no recálculo os empréstimos já arquivados.")
+    public void rebuildKeepsArchivedLoansTest() {
+        LocalDate today = LocalDate.now();
+        Book book = bookRepository.save(Book.builder().title("Livro").author("Autor").isbn("A0").build());
+        Book other = bookRepository.save(Book.builder().title("Outro").author("Autor").isbn("A1").build());
+        Loan old = loanService.save(loan(book, "Fulano", today.minusDays(400)));
+        old.setReturned(true);
+        loanService.update(old);
+        loanService.save(loan(other, "Fulano", today.minusDays(1)));
+        loanService.save(loan(book, "Ciclano", today));
+
+        assertThat(archiveService.archive()).isEqualTo(1);
+        List<DailyLoansDTO> daily = service.dailyLoans(today.minusDays(400), today);
+        List<TopBookDTO> topBooks = service.topBooks(10);
+        List<CustomerLoansDTO> topCustomers = service.topCustomers(10);
+        service.rebuild();
+
+        assertThat(service.dailyLoans(today.minusDays(400), today)).usingRecursiveFieldByFieldElementComparator().isEqualTo(daily);
+        assertThat(daily).extracting(DailyLoansDTO::getDate, DailyLoansDTO::getLoans, DailyLoansDTO::getOpenLoans)
+                .contains(tuple(today.minusDays(400), 1L, 0L));
+        assertThat(service.topBooks(10)).usingRecursiveFieldByFieldElementComparator().isEqualTo(topBooks);
+        assertThat(topBooks.get(0)).extracting(TopBookDTO::getIsbn, TopBookDTO::getLoans).containsExactly("A0", 2L);
+        assertThat(service.topCustomers(10)).usingRecursiveFieldByFieldElementComparator().isEqualTo(topCustomers);
+        assertThat(topCustomers).extracting(CustomerLoansDTO::getCustomer, CustomerLoansDTO::getLoans, CustomerLoansDTO::getOpenLoans)
+                .containsExactly(tuple("Fulano", 2L, 1L), tuple("Ciclano", 1L, 1L));
+    }
+
+    @Test
+    @DisplayName("Deve contar como atrasados apenas os empréstimos em aberto com vencimento já passado.")
+    public void overdueByDueDateTest() {
+        LocalDate today = LocalDate.now();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            books.add(bookRepository.save(Book.builder().title("Livro " + i).author("Autor").isbn("D" + i).build()));
+        }
+        Loan extended = loan(books.get(0), "Fulano", today.minusDays(10));
+        extended.setDueDate(LocalDateTime.now().plusDays(1));
+        loanService.save(extended);
+        Loan dueEarly = loan(books.get(1), "Ciclano", today);
+        dueEarly.setDueDate(LocalDateTime.now().minusMinutes(1));
+        loanService.save(dueEarly);
+        loanService.save(loan(books.get(2), "Beltrano", today.minusDays(1)));
+
+        OverdueLoansDTO overdue = service.overdueLoans();
+
+        assertThat(overdue.getCount()).isEqualTo(1L);
+        assertThat(overdue.getDueUntil()).isAfterOrEqualTo(dueEarly.getDueDate());
+    }
+
+    @Test
+    @DisplayName("Deve manter os agregados corretos com empréstimos concorrentes.")
+    public void concurrentLoansTest() throws Exception {
+        LocalDate today = LocalDate.now();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            books.add(bookRepository.save(Book.builder().title("Livro " + i).author("Autor").isbn("C" + i).build()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Loan>> futures = new ArrayList<>();
+            for (Book book : books) {
+                String customer = "Cliente " + (book.getId() % 3);
+                futures.add(executor.submit(() -> loanService.save(loan(book, customer, today))));
+            }
+            for (Future<Loan> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Snapshot incremental = snapshot(today);
+        service.rebuild();
+
+        assertThat(incremental).usingRecursiveComparison().isEqualTo(snapshot(today));
+        assertThat(incremental.daily)
+                .extracting(DailyLoansDTO::getLoans, DailyLoansDTO::getOpenLoans)
+                .containsExactly(tuple(40L, 40L));
+    }
+
+    private Snapshot snapshot(LocalDate today) {
+        Snapshot snapshot = new Snapshot();
+        snapshot.daily = service.dailyLoans(today.minusDays(30), today);
+        snapshot.overdue = service.overdueLoans().getCount();
+        snapshot.topBooks = service.topBooks(100);
+        snapshot.topCustomers = service.topCustomers(100);
+        return snapshot;
+    }
+
+    private static Loan loan(Book book, String customer, LocalDate loanDate) {
+        return Loan.builder()
+                .book(book)
+                .customer(customer)
+                .customerEmail(customer.toLowerCase().replace(' ', '.') + "@email.com")
+                .loanDate(loanDate)
+                .build();
+    }
+
+    static class Snapshot {
+
+        List<DailyLoansDTO> daily;
+        Long overdue;
+        List<TopBookDTO> topBooks;
+        List<CustomerLoansDTO> topCustomers;
+    }
+}
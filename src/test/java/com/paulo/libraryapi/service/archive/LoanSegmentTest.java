@@ -0,0 +1,118 @@
+package com.paulo.libraryapi.service.archive;
+
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LoanSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Deve gravar e ler de volta todas as colunas de um segmento.")
+    public void roundTripTest() throws IOException {
+        LocalDateTime dueDate = LocalDateTime.of(2020, 3, 10, 14, 30, 15, 123456789);
+        Loan loan = Loan.builder()
+                .id(7L)
+                .book(Book.builder().id(3L).isbn("123").build())
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .loanDate(LocalDate.of(2020, 3, 6))
+                .dueDate(dueDate)
+                .returned(true)
+                .build();
+        Loan legacy = Loan.builder().id(9L).book(Book.builder().id(4L).build()).customer("Ciclano").build();
+        Path file = directory.resolve("loans.seg");
+
+        LoanSegment.write(file, Arrays.asList(loan, legacy));
+        LoanSegment segment = LoanSegment.open(file);
+
+        assertThat(segment.getRows()).isEqualTo(2);
+        assertThat(segment.getMinId()).isEqualTo(7L);
+        assertThat(segment.getMaxId()).isEqualTo(9L);
+        assertThat(segment.findIdsByBook(3L)).containsExactly(7L);
+        assertThat(segment.read(segment.findIdsByBook(3L))).containsExactly(loan);
+        List<Loan> found = segment.read(segment.findIdsByBook(4L));
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getId()).isEqualTo(9L);
+        assertThat(found.get(0).getLoanDate()).isNull();
+        assertThat(found.get(0).getDueDate()).isNull();
+        assertThat(found.get(0).getCustomerEmail()).isNull();
+        assertThat(found.get(0).getBook().getIsbn()).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar os emprestimos arquivados por isbn ou cliente em ordem de id.")
+    public void findByIsbnOrCustomerTest() throws IOException {
+        List<Loan> loans = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            loans.add(Loan.builder()
+                    .id(id * 3)
+                    .book(Book.builder().id(id % 10).isbn("isbn-" + id % 10).build())
+                    .customer("Cliente " + id % 7)
+                    .loanDate(LocalDate.of(2020, 1, 1).plusDays(id % 30))
+                    .returned(true)
+                    .build());
+        }
+        Path file = directory.resolve("loans.seg");
+        LoanSegment.write(file, loans);
+        LoanSegment segment = LoanSegment.open(file);
+
+        assertThat(Files.size(file)).isLessThan(1000L * 8);
+        assertThat(segment.read(segment.findIdsByIsbnOrCustomer("isbn-3", null))).hasSize(100)
+                .allSatisfy(loan -> assertThat(loan.getBook().getIsbn()).isEqualTo("isbn-3"));
+        long[] ids = segment.findIdsByIsbnOrCustomer("isbn-3", "Cliente 2");
+        assertThat(ids).hasSize(100 + 143 - 14).isSorted();
+        assertThat(segment.read(Arrays.copyOfRange(ids, 10, 12))).extracting(Loan::getId).containsExactly(ids[10], ids[11]);
+        assertThat(segment.findIdsByIsbnOrCustomer(null, null)).isEmpty();
+        assertThat(segment.findIdsByIsbnOrCustomer("isbn-42", "Cliente 42")).isEmpty();
+        assertThat(segment.findIdsByBook(42L)).isEmpty();
+        assertThatThrownBy(() -> segment.read(new long[] {4L})).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar as colunas decodificadas dos segmentos lidos recentemente.")
+    public void columnCacheTest() throws IOException {
+        Path firstFile = directory.resolve("first.seg");
+        Path secondFile = directory.resolve("second.seg");
+        LoanSegment.write(firstFile, Arrays.asList(Loan.builder().id(1L).book(Book.builder().id(3L).build()).build()));
+        LoanSegment.write(secondFile, Arrays.asList(Loan.builder().id(2L).book(Book.builder().id(3L).build()).build()));
+        ColumnCache cache = new ColumnCache(1);
+        LoanSegment first = LoanSegment.open(firstFile, cache);
+        LoanSegment second = LoanSegment.open(secondFile, cache);
+        AtomicInteger decoded = new AtomicInteger();
+
+        assertThat(first.findIdsByBook(3L)).containsExactly(1L);
+        assertThat(first.findIdsByBook(3L)).containsExactly(1L);
+        assertThat(second.findIdsByBook(3L)).containsExactly(2L);
+        cache.get(second, 0, column -> decoded.incrementAndGet());
+        cache.get(first, 0, column -> decoded.incrementAndGet());
+        cache.get(first, 0, column -> decoded.incrementAndGet());
+
+        assertThat(decoded).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Deve recusar arquivos que nao sao segmentos.")
+    public void invalidSegmentTest() throws IOException {
+        Path file = Files.write(directory.resolve("other.seg"), new byte[128]);
+
+        assertThatThrownBy(() -> LoanSegment.open(file)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,119 @@
+package com.paulo.libraryapi.service.schedule;
+
+import com.paulo.libraryapi.config.LoanPolicy;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.service.EmailService;
+import com.paulo.libraryapi.service.LoanService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class DueLoanRemindersTest {
+
+    static final Duration WINDOW = Duration.ofHours(1);
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    EmailService emailService;
+
+    SimpleMeterRegistry meterRegistry;
+
+    DueLoanReminders reminders;
+
+    LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reminders = new DueLoanReminders(loanService, emailService, new LoanPolicy(Duration.ofDays(4)), meterRegistry,
+                Executors.defaultThreadFactory(),
+                "Atrasado", Duration.ofSeconds(1), 8, WINDOW, 2);
+        start = LocalDateTime.now().withNano(0).plusMinutes(1);
+        Mockito.when(loanService.getDueLoans(any(LocalDateTime.class), anyLong(), any(LocalDateTime.class), anyInt()))
+                .thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    @DisplayName("Deve carregar a janela desde o reinicio e disparar os lembretes no vencimento de cada emprestimo.")
+    public void fireAtDueDateTest() {
+        Loan late = loan(1L, start.minusMinutes(20), "a@email.com");
+        Loan first = loan(2L, start.plusMinutes(5), "b@email.com");
+        Loan second = loan(3L, start.plusMinutes(5), "c@email.com");
+        Loan returned = loan(4L, start.plusMinutes(10), "d@email.com");
+        Mockito.when(loanService.getDueLoans(start.minus(WINDOW), Long.MAX_VALUE, start.plus(WINDOW), 2))
+                .thenReturn(Arrays.asList(late, first));
+        Mockito.when(loanService.getDueLoans(first.getDueDate(), 2L, start.plus(WINDOW), 2))
+                .thenReturn(Arrays.asList(second, returned));
+        Mockito.when(loanService.getOverdueLoans(Collections.singletonList(1L))).thenReturn(Collections.singletonList(late));
+        Mockito.when(loanService.getOverdueLoans(Arrays.asList(2L, 3L))).thenReturn(Arrays.asList(first, second));
+
+        assertThat(reminders.advance(start)).isEqualTo(1);
+        verify(emailService).sendMails(Collections.singletonList("a@email.com"), "Atrasado");
+        assertThat(reminders.pending()).isEqualTo(3);
+
+        assertThat(reminders.advance(start.plusMinutes(5).minusSeconds(1))).isZero();
+        assertThat(reminders.advance(start.plusMinutes(5))).isEqualTo(2);
+        verify(emailService).sendMails(Arrays.asList("b@email.com", "c@email.com"), "Atrasado");
+
+        assertThat(reminders.advance(start.plusMinutes(10))).isZero();
+        verify(loanService).getOverdueLoans(Collections.singletonList(4L));
+        verify(emailService, times(2)).sendMails(anyList(), anyString());
+        assertThat(reminders.pending()).isZero();
+        assertThat(meterRegistry.get(JobMetrics.ROWS).tag("job", DueLoanReminders.DUE_LOANS_JOB).summary().totalAmount())
+                .isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve carregar somente a proxima janela quando o horizonte carregado se aproximar.")
+    public void loadNextWindowTest() {
+        reminders.advance(start);
+        reminders.advance(start.plusMinutes(29));
+        verify(loanService, times(1)).getDueLoans(any(LocalDateTime.class), anyLong(), any(LocalDateTime.class), anyInt());
+
+        reminders.advance(start.plusMinutes(31));
+
+        verify(loanService).getDueLoans(start.plus(WINDOW), Long.MAX_VALUE, start.plusMinutes(31).plus(WINDOW), 2);
+        verify(loanService, never()).getOverdueLoans(anyList());
+        verify(emailService, never()).sendMails(anyList(), eq("Atrasado"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar uma janela maior que o prazo do emprestimo.")
+    public void windowLongerThanLoanPeriodTest() {
+        assertThatThrownBy(() -> new DueLoanReminders(loanService, emailService, new LoanPolicy(Duration.ofMinutes(30)),
+                meterRegistry, Executors.defaultThreadFactory(), "Atrasado", Duration.ofSeconds(1), 8, WINDOW, 2))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private Loan loan(Long id, LocalDateTime dueDate, String email) {
+        return Loan.builder().id(id).dueDate(dueDate).customerEmail(email).build();
+    }
+}
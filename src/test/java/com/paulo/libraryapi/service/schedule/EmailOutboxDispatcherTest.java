@@ -0,0 +1,147 @@
+package com.paulo.libraryapi.service.schedule;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.paulo.libraryapi.model.entity.EmailOutbox;
+import com.paulo.libraryapi.model.entity.EmailStatus;
+import com.paulo.libraryapi.model.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EmailOutboxDispatcherTest {
+
+    @Autowired
+    EmailOutboxRepository repository;
+
+    GreenMail smtp;
+
+    SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        smtp = new GreenMail(ServerSetupTest.SMTP);
+        smtp.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        smtp.stop();
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve entregar os emails pendentes do outbox.")
+    public void deliverPendingMailsTest() throws Exception {
+        persistMail("a@email.com", 0);
+        persistMail("b@email.com", 0);
+        persistMail("c@email.com", 0);
+        EmailOutboxDispatcher dispatcher = createDispatcher(ServerSetupTest.SMTP.getPort());
+
+        dispatcher.dispatch();
+
+        assertThat(smtp.waitForIncomingEmail(5000, 3)).isTrue();
+        await(() -> repository.findAll().stream().allMatch(mail -> mail.getStatus() == EmailStatus.SENT));
+        assertThat(meterRegistry.get("mail.outbox.sent").counter().count()).isEqualTo(3);
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve reagendar o envio com backoff quando o servidor de email falhar.")
+    public void retryWhenSmtpFailsTest() throws Exception {
+        persistMail("a@email.com", 0);
+        EmailOutboxDispatcher dispatcher = createDispatcher(ServerSetupTest.SMTP.getPort() + 1);
+
+        dispatcher.dispatch();
+
+        await(() -> repository.findAll().get(0).getStatus() == EmailStatus.PENDING);
+        EmailOutbox mail = repository.findAll().get(0);
+        assertThat(mail.getAttempts()).isEqualTo(1);
+        assertThat(mail.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(mail.getLastError()).isNotEmpty();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve marcar o email como falho ao atingir o limite de tentativas.")
+    public void failAfterMaxAttemptsTest() throws Exception {
+        persistMail("a@email.com", 2);
+        EmailOutboxDispatcher dispatcher = createDispatcher(ServerSetupTest.SMTP.getPort() + 1);
+
+        dispatcher.dispatch();
+
+        await(() -> repository.findAll().get(0).getStatus() == EmailStatus.FAILED);
+        assertThat(repository.findAll().get(0).getAttempts()).isEqualTo(3);
+        assertThat(meterRegistry.get("mail.outbox.failed").counter().count()).isEqualTo(1);
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar emails cujo proximo envio ainda nao chegou.")
+    public void skipMailsNotDueTest() throws Exception {
+        EmailOutbox mail = persistMail("a@email.com", 1);
+        mail.setNextAttemptAt(LocalDateTime.now().plusMinutes(10));
+        repository.save(mail);
+        EmailOutboxDispatcher dispatcher = createDispatcher(ServerSetupTest.SMTP.getPort());
+
+        dispatcher.dispatch();
+
+        assertThat(smtp.waitForIncomingEmail(500, 1)).isFalse();
+        List<EmailOutbox> mails = repository.findAll();
+        assertThat(mails.get(0).getStatus()).isEqualTo(EmailStatus.PENDING);
+        dispatcher.shutdown();
+    }
+
+    private EmailOutboxDispatcher createDispatcher(int port) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(port);
+        return new EmailOutboxDispatcher(repository, sender, meterRegistry, new CustomizableThreadFactory("mail-outbox-"), "mail@library-api.com",
+                2, 10, 10, 3, Duration.ofMinutes(1), Duration.ofMinutes(5));
+    }
+
+    private EmailOutbox persistMail(String recipient, int attempts) {
+        LocalDateTime now = LocalDateTime.now();
+        return repository.save(EmailOutbox.builder()
+                .recipient(recipient)
+                .subject("Livro com emprestimo atrasado")
+                .body("Atrasado")
+                .dedupKey("key")
+                .status(EmailStatus.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(now.minusSeconds(1))
+                .createdAt(now)
+                .build());
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.paulo.libraryapi.service.schedule;
+
+import com.paulo.libraryapi.LibraryApiApplication;
+import com.paulo.libraryapi.model.entity.Book;
+import com.paulo.libraryapi.model.entity.EmailOutbox;
+import com.paulo.libraryapi.model.entity.JobPartition;
+import com.paulo.libraryapi.model.entity.JobPartitionStatus;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.model.repository.BookRepository;
+import com.paulo.libraryapi.model.repository.EmailOutboxRepository;
+import com.paulo.libraryapi.model.repository.JobLeaseRepository;
+import com.paulo.libraryapi.model.repository.JobPartitionRepository;
+import com.paulo.libraryapi.model.repository.LoanRepository;
+import com.paulo.libraryapi.service.JobPartitionService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LateLoansClusterTest {
+
+    static final int NODES = 3;
+    static final int LOANS = 120;
+    static final int CUSTOMERS = 45;
+
+    static List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @BeforeAll
+    static void startNodes() {
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new SpringApplicationBuilder(LibraryApiApplication.class)
+                    .web(WebApplicationType.SERVLET)
+                    .profiles("test")
+                    .run("--server.port=0",
+                            "--spring.datasource.url=jdbc:h2:mem:late-loans-cluster;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                            "--spring.jpa.hibernate.ddl-auto=update",
+                            "--spring.jmx.enabled=false",
+                            "--application.mail.outbox.poll-interval=PT1H",
+                            "--application.mail.lateloans.poll-interval=PT1H",
+                            "--application.mail.lateloans.partition-size=10",
+                            "--application.mail.lateloans.batch-size=4",
+                            "--application.mail.lateloans.workers=2"));
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+        nodes.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        node(0).getBean(EmailOutboxRepository.class).deleteAllInBatch();
+        node(0).getBean(JobPartitionRepository.class).deleteAllInBatch();
+        node(0).getBean(JobLeaseRepository.class).deleteAllInBatch();
+        node(0).getBean(LoanRepository.class).deleteAllInBatch();
+        node(0).getBean(BookRepository.class).deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Deve planejar a execucao em um unico no e processar cada emprestimo atrasado uma unica vez.")
+    public void clusterRunTest() throws Exception {
+        persistLateLoans();
+        LocalDate today = LocalDate.now();
+
+        ExecutorService threads = Executors.newFixedThreadPool(NODES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> plans = new ArrayList<>();
+        try {
+            for (ConfigurableApplicationContext node : nodes) {
+                ScheduleServices scheduleServices = node.getBean(ScheduleServices.class);
+                plans.add(threads.submit(() -> {
+                    start.await();
+                    return scheduleServices.planLateLoans(today);
+                }));
+            }
+            start.countDown();
+            long planned = 0;
+            for (Future<Boolean> plan : plans) {
+                planned += plan.get() ? 1 : 0;
+            }
+            assertThat(planned).isEqualTo(1);
+
+            List<CompletableFuture<Long>> runs = nodes.stream()
+                    .map(node -> CompletableFuture.supplyAsync(
+                            () -> node.getBean(ScheduleServices.class).processLateLoans(today), threads))
+                    .collect(Collectors.toList());
+            long rows = 0;
+            for (CompletableFuture<Long> run : runs) {
+                rows += run.get();
+            }
+            assertThat(rows).isEqualTo(LOANS);
+        } finally {
+            threads.shutdown();
+        }
+
+        List<JobPartition> partitions = node(1).getBean(JobPartitionRepository.class)
+                .findByJobAndRunDateOrderByFromId(ScheduleServices.LATE_LOANS_JOB, today);
+        assertThat(partitions).hasSize(LOANS / 10 + 1);
+        assertThat(partitions).extracting(JobPartition::getStatus).containsOnly(JobPartitionStatus.DONE);
+        assertThat(node(2).getBean(EmailOutboxRepository.class).findAll())
+                .extracting(EmailOutbox::getRecipient)
+                .hasSize(CUSTOMERS)
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("Deve retomar a particao de um worker que parou quando o lease expirar.")
+    public void expiredPartitionLeaseTest() {
+        persistLateLoans();
+        LocalDate today = LocalDate.now();
+        assertThat(node(0).getBean(ScheduleServices.class).planLateLoans(today)).isTrue();
+
+        JobPartitionService crashed = node(0).getBean(JobPartitionService.class);
+        Optional<JobPartition> running = crashed.claim(ScheduleServices.LATE_LOANS_JOB, today, Duration.ofHours(1));
+        Optional<JobPartition> expired = crashed.claim(ScheduleServices.LATE_LOANS_JOB, today, Duration.ZERO);
+        assertThat(expired).isPresent();
+        assertThat(running).isPresent();
+
+        long rows = node(1).getBean(ScheduleServices.class).processLateLoans(today);
+
+        assertThat(rows).isEqualTo(LOANS - 10);
+        assertThat(node(1).getBean(JobPartitionRepository.class).findByJobAndRunDateOrderByFromId(ScheduleServices.LATE_LOANS_JOB, today))
+                .allSatisfy(partition -> assertThat(partition.getStatus()).isEqualTo(
+                        partition.getId().equals(running.get().getId()) ? JobPartitionStatus.RUNNING : JobPartitionStatus.DONE));
+        assertThat(crashed.finish(expired.get())).isFalse();
+    }
+
+    private void persistLateLoans() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < LOANS; i++) {
+            books.add(Book.builder().title("Livro " + i).author("Autor").isbn("isbn-" + i).build());
+        }
+        books = node(0).getBean(BookRepository.class).saveAll(books);
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < LOANS; i++) {
+            loans.add(Loan.builder()
+                    .book(books.get(i))
+                    .customer("Cliente " + i % CUSTOMERS)
+                    .customerEmail("cliente-" + i % CUSTOMERS + "@email.com")
+                    .loanDate(LocalDate.now().minusDays(10))
+                    .dueDate(LocalDateTime.now().minusDays(6))
+                    .build());
+        }
+        node(0).getBean(LoanRepository.class).saveAll(loans);
+    }
+
+    private static ConfigurableApplicationContext node(int index) {
+        return nodes.get(index);
+    }
+}
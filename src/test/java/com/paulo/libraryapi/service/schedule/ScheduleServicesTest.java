@@ -0,0 +1,213 @@
+package com.paulo.libraryapi.service.schedule;
+
+import com.paulo.libraryapi.model.entity.JobPartition;
+import com.paulo.libraryapi.model.entity.JobPartitionStatus;
+import com.paulo.libraryapi.model.entity.Loan;
+import com.paulo.libraryapi.service.EmailService;
+import com.paulo.libraryapi.service.JobLeaseService;
+import com.paulo.libraryapi.service.JobPartitionService;
+import com.paulo.libraryapi.service.LoanService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServicesTest {
+
+    static final Duration LEASE = Duration.ofMinutes(5);
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    EmailService emailService;
+
+    @MockBean
+    JobLeaseService leaseService;
+
+    @MockBean
+    JobPartitionService partitionService;
+
+    SimpleMeterRegistry meterRegistry;
+
+    ScheduleServices scheduleServices;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduleServices = new ScheduleServices(loanService, emailService, leaseService, partitionService, meterRegistry,
+                new CustomizableThreadFactory("late-loans-"), "Atrasado", 2, 100, 1, LEASE);
+        Mockito.when(partitionService.advance(any(JobPartition.class), anyLong(), eq(LEASE))).thenAnswer(invocation -> {
+            invocation.<JobPartition>getArgument(0).setLastKey(invocation.getArgument(1));
+            return true;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduleServices.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve dividir os emprestimos atrasados em faixas de ids quando obtiver o lease.")
+    public void planLateLoansTest() {
+        LocalDate today = LocalDate.now();
+        Mockito.when(leaseService.acquire(eq(ScheduleServices.LATE_LOANS_JOB), anyString(), eq(LEASE))).thenReturn(true);
+        Mockito.when(loanService.getLateLoanIdAfter(0L, 100)).thenReturn(Optional.of(150L));
+        Mockito.when(loanService.getLateLoanIdAfter(150L, 100)).thenReturn(Optional.of(420L));
+        Mockito.when(loanService.getLateLoanIdAfter(420L, 100)).thenReturn(Optional.empty());
+
+        assertThat(scheduleServices.planLateLoans(today)).isTrue();
+
+        verify(partitionService).plan(ScheduleServices.LATE_LOANS_JOB, today, Arrays.asList(150L, 420L));
+        verify(leaseService).release(eq(ScheduleServices.LATE_LOANS_JOB), anyString());
+    }
+
+    @Test
+    @DisplayName("Deve nao planejar a execucao sem o lease ou quando ela ja foi planejada.")
+    public void planLateLoansWithoutLeaseTest() {
+        LocalDate today = LocalDate.now();
+        Mockito.when(leaseService.acquire(eq(ScheduleServices.LATE_LOANS_JOB), anyString(), eq(LEASE))).thenReturn(false, true);
+        Mockito.when(partitionService.isPlanned(ScheduleServices.LATE_LOANS_JOB, today)).thenReturn(true);
+
+        assertThat(scheduleServices.planLateLoans(today)).isFalse();
+        verify(leaseService, never()).release(anyString(), anyString());
+
+        assertThat(scheduleServices.planLateLoans(today)).isFalse();
+        verify(leaseService).release(eq(ScheduleServices.LATE_LOANS_JOB), anyString());
+
+        verify(loanService, never()).getLateLoanIdAfter(anyLong(), anyInt());
+        verify(partitionService, never()).plan(anyString(), any(LocalDate.class), anyList());
+    }
+
+    @Test
+    @DisplayName("Deve enviar os emails das particoes obtidas em lotes registrando o progresso.")
+    public void processLateLoansInBatchesTest() {
+        LocalDate today = LocalDate.now();
+        JobPartition partition = partition(0L, 10L);
+        Mockito.when(partitionService.claim(ScheduleServices.LATE_LOANS_JOB, today, LEASE))
+                .thenReturn(Optional.of(partition), Optional.empty());
+        Mockito.when(loanService.getLateLoans(0L, 10L, 2)).thenReturn(Arrays.asList(loan(1L, "a@email.com"), loan(2L, "b@email.com")));
+        Mockito.when(loanService.getLateLoans(2L, 10L, 2)).thenReturn(Arrays.asList(loan(5L, "a@email.com"), loan(7L, null)));
+        Mockito.when(loanService.getLateLoans(7L, 10L, 2)).thenReturn(Collections.emptyList());
+
+        assertThat(scheduleServices.processLateLoans(today)).isEqualTo(4);
+
+        verify(emailService).sendMails(Arrays.asList("a@email.com", "b@email.com"), "Atrasado");
+        verify(emailService).sendMails(Collections.singletonList("a@email.com"), "Atrasado");
+        verify(partitionService).advance(partition, 2L, LEASE);
+        verify(partitionService).advance(partition, 7L, LEASE);
+        verify(partitionService).finish(partition);
+        assertThat(meterRegistry.get(JobMetrics.ROWS).tag("job", ScheduleServices.LATE_LOANS_JOB).summary().totalAmount())
+                .isEqualTo(4);
+        assertThat(meterRegistry.get(JobMetrics.DURATION).tag("job", ScheduleServices.LATE_LOANS_JOB).timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve retomar a particao a partir do ultimo id registrado.")
+    public void resumePartitionTest() {
+        LocalDate today = LocalDate.now();
+        JobPartition partition = partition(0L, 10L);
+        partition.setLastKey(5L);
+        Mockito.when(partitionService.claim(ScheduleServices.LATE_LOANS_JOB, today, LEASE))
+                .thenReturn(Optional.of(partition), Optional.empty());
+        Mockito.when(loanService.getLateLoans(5L, 10L, 2)).thenReturn(Collections.singletonList(loan(7L, "c@email.com")));
+        Mockito.when(loanService.getLateLoans(7L, 10L, 2)).thenReturn(Collections.emptyList());
+
+        scheduleServices.processLateLoans(today);
+
+        verify(emailService, times(1)).sendMails(Collections.singletonList("c@email.com"), "Atrasado");
+        verify(partitionService).finish(partition);
+    }
+
+    @Test
+    @DisplayName("Deve abandonar a particao quando perder o lease para outro worker.")
+    public void lostPartitionLeaseTest() {
+        LocalDate today = LocalDate.now();
+        JobPartition partition = partition(0L, 10L);
+        Mockito.when(partitionService.claim(ScheduleServices.LATE_LOANS_JOB, today, LEASE))
+                .thenReturn(Optional.of(partition), Optional.empty());
+        Mockito.doReturn(false).when(partitionService).advance(partition, 1L, LEASE);
+        Mockito.when(loanService.getLateLoans(0L, 10L, 2)).thenReturn(Collections.singletonList(loan(1L, "a@email.com")));
+
+        scheduleServices.processLateLoans(today);
+
+        verify(loanService, times(1)).getLateLoans(anyLong(), anyLong(), anyInt());
+        verify(partitionService, never()).finish(any(JobPartition.class));
+    }
+
+    @Test
+    @DisplayName("Deve reenviar o lote quando outra particao enfileirar o mesmo email ao mesmo tempo.")
+    public void retryDuplicatedEmailTest() {
+        LocalDate today = LocalDate.now();
+        JobPartition partition = partition(0L, 10L);
+        Mockito.when(partitionService.claim(ScheduleServices.LATE_LOANS_JOB, today, LEASE))
+                .thenReturn(Optional.of(partition), Optional.empty());
+        Mockito.when(loanService.getLateLoans(0L, 10L, 2)).thenReturn(Collections.singletonList(loan(1L, "a@email.com")));
+        Mockito.when(loanService.getLateLoans(1L, 10L, 2)).thenReturn(Collections.emptyList());
+        Mockito.doThrow(new DataIntegrityViolationException("uk_email_outbox_recipient_dedup"))
+                .doNothing()
+                .when(emailService).sendMails(Collections.singletonList("a@email.com"), "Atrasado");
+
+        scheduleServices.processLateLoans(today);
+
+        verify(emailService, times(2)).sendMails(Collections.singletonList("a@email.com"), "Atrasado");
+        verify(partitionService).finish(partition);
+    }
+
+    @Test
+    @DisplayName("Deve nao registrar metricas quando nao houver particoes pendentes.")
+    public void nothingToProcessTest() throws Exception {
+        Mockito.when(partitionService.claim(ScheduleServices.LATE_LOANS_JOB, LocalDate.now(), LEASE)).thenReturn(Optional.empty());
+
+        scheduleServices.resumeLateLoans().get();
+
+        verify(loanService, never()).getLateLoans(anyLong(), anyLong(), anyInt());
+        assertThat(meterRegistry.find(JobMetrics.ROWS).summary()).isNull();
+    }
+
+    private JobPartition partition(Long fromId, Long toId) {
+        return JobPartition.builder()
+                .id(1L)
+                .job(ScheduleServices.LATE_LOANS_JOB)
+                .runDate(LocalDate.now())
+                .fromId(fromId)
+                .toId(toId)
+                .lastKey(fromId)
+                .status(JobPartitionStatus.RUNNING)
+                .owner("worker")
+                .build();
+    }
+
+    private Loan loan(Long id, String email) {
+        return Loan.builder().id(id).customerEmail(email).build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.paulo.libraryapi.service.schedule;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimerWheelTest {
+
+    @Test
+    @DisplayName("Deve disparar as tarefas somente quando o prazo for atingido.")
+    public void fireAtDeadlineTest() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 4, 0);
+        assertThat(wheel.add(25, "a")).isTrue();
+        assertThat(wheel.add(25, "b")).isTrue();
+        assertThat(wheel.add(31, "c")).isTrue();
+
+        assertThat(wheel.advance(24)).isEmpty();
+        assertThat(wheel.advance(25)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.advance(30)).isEmpty();
+        assertThat(wheel.advance(31)).containsExactly("c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve rebaixar as tarefas distantes entre os niveis da roda ate dispara-las.")
+    public void cascadeTest() {
+        TimerWheel<Long> wheel = new TimerWheel<>(10, 4, 0);
+        long[] deadlines = {5, 39, 40, 161, 1000, 12345};
+        for (long deadline : deadlines) {
+            wheel.add(deadline, deadline);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 1; now <= 13000; now += 7) {
+            for (Long deadline : wheel.advance(now)) {
+                assertThat(deadline).isLessThanOrEqualTo(now).isGreaterThan(now - 7);
+                fired.add(deadline);
+            }
+        }
+
+        assertThat(fired).containsExactly(5L, 39L, 40L, 161L, 1000L, 12345L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve recusar tarefas vencidas e disparar todas as pendentes apos um salto no tempo.")
+    public void expiredAndJumpTest() {
+        TimerWheel<String> wheel = new TimerWheel<>(10, 4, 100);
+        assertThat(wheel.add(100, "vencida")).isFalse();
+        wheel.add(150, "a");
+        wheel.add(900, "b");
+        wheel.add(5000, "c");
+
+        assertThat(wheel.advance(1000)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(999)).isEmpty();
+        assertThat(wheel.advance(5000)).containsExactly("c");
+    }
+}